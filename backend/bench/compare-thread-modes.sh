@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 latency of GET /api/tasks with platform vs virtual request threads.
+#
+# Needs: Java 21, k6, jq, curl, and the MySQL container (docker-compose up -d db).
+# Usage: bench/compare-thread-modes.sh            (from the backend directory)
+#        VUS=800 DURATION=120s bench/compare-thread-modes.sh
+#
+# Each mode gets a fresh JVM. The app runs with -Djdk.tracePinnedThreads=short,
+# so every carrier-pinning stack is written to the log and counted below.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+OUT=bench/out
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}"
+mkdir -p "$OUT"
+
+./gradlew -q bootJar -x test
+JAR=$(ls build/libs/*.jar | grep -v plain | head -n 1)
+
+run_mode() {
+    local mode=$1 virtual=$2
+    echo "==> ${mode} threads"
+
+    VIRTUAL_THREADS_ENABLED=$virtual SPRING_JPA_SHOW_SQL=false \
+        java -Djdk.tracePinnedThreads=short -Dserver.port="$PORT" -jar "$JAR" > "$OUT/$mode.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' RETURN
+
+    for _ in $(seq 1 60); do
+        curl -sf "$BASE_URL/actuator/health" > /dev/null && break
+        sleep 1
+    done
+
+    k6 run --quiet -e BASE_URL="$BASE_URL" --summary-export "$OUT/$mode.json" bench/tasks-load.js
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
+
+printf '\n%-10s %12s %10s %10s %8s\n' mode req/s p95_ms p99_ms pinned
+for mode in platform virtual; do
+    rps=$(jq '.metrics.http_reqs.rate' "$OUT/$mode.json")
+    p95=$(jq '.metrics.http_req_duration["p(95)"]' "$OUT/$mode.json")
+    p99=$(jq '.metrics.http_req_duration["p(99)"]' "$OUT/$mode.json")
+    pinned=$(grep -c 'onPinned\|<== monitors' "$OUT/$mode.log" || true)
+    printf '%-10s %12.1f %10.1f %10.1f %8s\n' "$mode" "$rps" "$p95" "$p99" "$pinned"
+done
@@ -0,0 +1,53 @@
+// k6 load script for GET /api/tasks.
+// Used by compare-thread-modes.sh; can also be run on its own:
+//   k6 run -e BASE_URL=http://localhost:8080 bench/tasks-load.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TASKS = Number(__ENV.TASKS || 50);
+
+export const options = {
+    scenarios: {
+        tasks: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 400),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_failed{name:list}': ['rate<0.01'],
+    },
+};
+
+const json = { headers: { 'Content-Type': 'application/json' } };
+
+export function setup() {
+    const username = `bench${Date.now() % 100000000}`;
+    const password = 'Bench-Passw0rd!';
+
+    const reg = http.post(`${BASE_URL}/api/auth/register`,
+        JSON.stringify({ username, email: `${username}@bench.local`, password }), json);
+    check(reg, { 'registered': r => r.status === 201 });
+
+    const login = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ username, password }), json);
+    check(login, { 'logged in': r => r.status === 200 });
+    const token = login.json('accessToken');
+
+    const auth = { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${token}` } };
+    for (let i = 0; i < TASKS; i++) {
+        http.post(`${BASE_URL}/api/tasks`,
+            JSON.stringify({ title: `task ${i}`, description: 'bench', isActive: true }), auth);
+    }
+    return { token };
+}
+
+export default function (data) {
+    const res = http.get(`${BASE_URL}/api/tasks`, {
+        headers: { Authorization: `Bearer ${data.token}` },
+        tags: { name: 'list' },
+    });
+    check(res, { 'status 200': r => r.status === 200 });
+}
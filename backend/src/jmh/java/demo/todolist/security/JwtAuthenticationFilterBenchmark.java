@@ -0,0 +1,136 @@
+package demo.todolist.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request, every variant through the same mock request / response:
+ * the old filter (three full parses, each with a new parser) against the current one
+ * (single parse, then verified-token cache hits).
+ *
+ * <pre>./gradlew jmh</pre> (results in build/results/jmh)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "BenchmarkJwtSecretKeyThatIsDefinitelyLongEnough123456789!";
+    private static final FilterChain NOOP_CHAIN = (req, res) -> { };
+
+    private LegacyJwtAuthenticationFilter legacyFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter uncachedFilter;
+    private String header;
+
+    @Setup
+    public void setUp() {
+        legacyFilter = new LegacyJwtAuthenticationFilter(Keys.hmacShaKeyFor(SECRET.getBytes()));
+        JwtUtil cached = jwtUtil(10_000);
+        cachedFilter = new JwtAuthenticationFilter(cached, null);
+        uncachedFilter = new JwtAuthenticationFilter(jwtUtil(0), null);
+        header = "Bearer " + cached.generateAccessToken(UUID.randomUUID(), "bench", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private JwtUtil jwtUtil(int cacheSize) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "accessTtlMillis", 900_000L);
+        ReflectionTestUtils.setField(util, "verifiedCacheSize", cacheSize);
+        util.init();
+        return util;
+    }
+
+    /** The filter as it was: the expiry check, the username and the roles each parse the token. */
+    @Benchmark
+    public Object before_tripleParse() throws Exception {
+        return runFilter(legacyFilter);
+    }
+
+    @Benchmark
+    public Object after_singleParse() throws Exception {
+        return runFilter(uncachedFilter);
+    }
+
+    @Benchmark
+    public Object after_cachedParse() throws Exception {
+        return runFilter(cachedFilter);
+    }
+
+    private Object runFilter(OncePerRequestFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", header);
+        filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        // part of every variant, so it doesn't skew the comparison
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    /** The pre-cache filter, kept here so the baseline runs through the same request / response harness. */
+    static final class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+        private final SecretKey secretKey;
+
+        LegacyJwtAuthenticationFilter(SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+                throws ServletException, IOException {
+            String bearer = req.getHeader("Authorization");
+            if (bearer != null && bearer.startsWith("Bearer ")) {
+                String token = bearer.substring(7);
+                if (isTokenValid(token)) {
+                    String username = parse(token).getSubject();
+                    @SuppressWarnings("unchecked")
+                    List<String> roles = parse(token).get("roles", List.class);
+                    if (roles == null) roles = List.of();
+
+                    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                            username, null, roles.stream().map(SimpleGrantedAuthority::new).toList()));
+                }
+            }
+            chain.doFilter(req, res);
+        }
+
+        private boolean isTokenValid(String token) {
+            try {
+                return !parse(token).getExpiration().before(new Date());
+            } catch (JwtException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        // a new parser per call, as the old JwtUtil did
+        private Claims parse(String token) {
+            return Jwts.parserBuilder()
+                    .setSigningKey(secretKey)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package demo.todolist.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the auth rate limiter: one bucket lookup/update for an existing key,
+ * and the same under contention from several threads hitting the striped table.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=StripedRateLimiterBenchmark</pre> (results in build/results/jmh)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StripedRateLimiterBenchmark {
+
+    private static final int KEYS = 50_000;
+
+    private StripedRateLimiter limiter;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        // huge refill so the benchmark measures the bookkeeping, not rejections
+        limiter = new StripedRateLimiter(1_000, 1_000_000, 64, 200_000);
+        ips = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            ips[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+            limiter.tryAcquire(ips[i]);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire_singleThread() {
+        return limiter.tryAcquire(ips[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long tryAcquire_eightThreads() {
+        return limiter.tryAcquire(ips[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
@@ -1,16 +1,48 @@
 package demo.todolist.configuration;
 
+import demo.todolist.security.BcryptCostCalibrator;
+import demo.todolist.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Configuration
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${passwords.bcrypt.target-hash-time:250ms}") Duration targetHashTime,
+                                           @Value("${passwords.bcrypt.min-cost:10}") int minCost,
+                                           @Value("${passwords.bcrypt.max-cost:14}") int maxCost,
+                                           @Value("${passwords.hashing.threads:0}") int threads,
+                                           @Value("${passwords.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${passwords.hashing.timeout:2s}") Duration timeout,
+                                           @Value("${passwords.hashing.retry-after:1s}") Duration retryAfter){
+        BcryptCostCalibrator.Result calibration = BcryptCostCalibrator.calibrate(targetHashTime, minCost, maxCost);
+        log.info("BCrypt cost {} selected ({} ms per hash, target {} ms)",
+                calibration.cost(), calibration.hashTime().toMillis(), targetHashTime.toMillis());
+
+        Gauge.builder("password.hashing.cost", calibration, BcryptCostCalibrator.Result::cost)
+                .strongReference(true)
+                .register(meterRegistry);
+        TimeGauge.builder("password.hashing.calibrated.time", calibration, TimeUnit.NANOSECONDS,
+                        c -> c.hashTime().toNanos())
+                .strongReference(true)
+                .register(meterRegistry);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(calibration.cost()),
+                poolSize, queueCapacity, timeout, retryAfter, meterRegistry);
     }
 
 }
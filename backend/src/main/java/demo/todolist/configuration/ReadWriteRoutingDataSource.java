@@ -0,0 +1,43 @@
+package demo.todolist.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks the pool when a connection is actually fetched: the replica for a read-only transaction
+ * (unless {@link ReadYourWritesGuard} pins the user), the primary for everything else.
+ * Only correct behind a {@code LazyConnectionDataSourceProxy}, see {@link ReadReplicaConfig}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWritesGuard guard;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return guard.isPinned() ? Route.PRIMARY : Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // the pin window starts when the write becomes visible on the primary
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guard.recordWrite();
+                }
+            });
+        } else {
+            guard.recordWrite();
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,47 @@
+package demo.todolist.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import demo.todolist.security.AuthenticatedUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Remembers which users committed a write within the last {@code window}; their read-only
+ * transactions stay on the primary until the replica has caught up. Calls without an authenticated
+ * user (login, background jobs) are never pinned. The memory is per instance, like the other caches.
+ */
+public class ReadYourWritesGuard {
+
+    private final Cache<UUID, Boolean> recentWriters;
+
+    public ReadYourWritesGuard(Duration window, long maximumUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumUsers)
+                .build();
+    }
+
+    public void recordWrite() {
+        UUID userId = currentUserId();
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean isPinned() {
+        UUID userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.id();
+        }
+        return null;
+    }
+}
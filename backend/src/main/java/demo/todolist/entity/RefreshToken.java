@@ -15,7 +15,10 @@ import java.util.UUID;
 @Table(name = "refresh_tokens",
         indexes = {
                 @Index(name = "idx_refresh_token_token", columnList = "token", unique = true),
-                @Index(name = "idx_refresh_token_owner", columnList = "owner_id")
+                @Index(name = "idx_refresh_token_owner", columnList = "owner_id"),
+                @Index(name = "idx_refresh_token_revoked", columnList = "revoked"),
+                @Index(name = "idx_refresh_token_expires", columnList = "expires_at"),
+                @Index(name = "idx_refresh_token_owner_lru", columnList = "owner_id, revoked, last_used_at")
         })
 public class RefreshToken {
 
@@ -30,9 +33,12 @@ public class RefreshToken {
     @JoinColumn(name = "owner_id")
     private User owner;
 
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
 
+    // set at issue time, so the per-user cap can walk idx_refresh_token_owner_lru without a filesort
+    @Column(name = "last_used_at", nullable = false)
+    private Instant lastUsedAt;
 
     @Column(nullable = false)
     private boolean revoked = false;
@@ -12,7 +12,14 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "tasks")
+@Table(name = "tasks",
+        indexes = {
+                @Index(name = "idx_task_owner_created", columnList = "owner_id, created_at, id"),
+                // filtered list: equality on owner + isActive, then a range / order on created_at
+                @Index(name = "idx_task_owner_active_created", columnList = "owner_id, isActive, created_at, id"),
+                // delta sync: everything of one owner changed after a given sequence
+                @Index(name = "idx_task_owner_change_seq", columnList = "owner_id, change_seq")
+        })
 public class Task {
 
 
@@ -29,14 +36,27 @@ public class Task {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // owner's task version at the last write (task_versions), see TaskService
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    // optimistic lock: entity flushes check it, PATCH /api/tasks/{id} compares it with If-Match
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @Column(name = "isActive")
     private boolean isActive;
 
-    @Column(name = "counted_as_done")
+    // written only by TaskRepository.markCountedAsDone, never by the entity flush
+    @Column(name = "counted_as_done", updatable = false)
     private boolean countedAsDone = false;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
 }
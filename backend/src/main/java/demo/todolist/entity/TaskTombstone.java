@@ -0,0 +1,41 @@
+package demo.todolist.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Left behind by a task delete so delta sync can report it. The owner is a plain column, not a
+ * foreign key: tombstones, a deleted user's included, go with the retention purge and never block a delete.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "task_tombstones",
+        indexes = {
+                @Index(name = "idx_tombstone_owner_change_seq", columnList = "owner_id, change_seq"),
+                @Index(name = "idx_tombstone_deleted_at", columnList = "deleted_at")
+        })
+public class TaskTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "task_id", nullable = false)
+    private UUID taskId;
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
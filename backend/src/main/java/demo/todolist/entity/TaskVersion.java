@@ -0,0 +1,28 @@
+package demo.todolist.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * The owner's task version: bumped by every task write, the source of the list ETags and of change_seq.
+ * Kept out of {@code users} so task writes never lock or rewrite the users row (nor evict its cache entry).
+ * The owner is a plain key, not a foreign key; the row is created by the first write.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "task_versions")
+public class TaskVersion {
+
+    @Id
+    @Column(name = "owner_id")
+    private UUID ownerId;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -14,9 +14,16 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = {
+                @UniqueConstraint(name = User.UK_USERNAME, columnNames = "username"),
+                @UniqueConstraint(name = User.UK_EMAIL, columnNames = "email")
+        })
 public class User {
 
+    public static final String UK_USERNAME = "uk_users_username";
+    public static final String UK_EMAIL = "uk_users_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -0,0 +1,14 @@
+package demo.todolist.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidCursorException extends RuntimeException {
+
+    private final String field;
+
+    public InvalidCursorException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+}
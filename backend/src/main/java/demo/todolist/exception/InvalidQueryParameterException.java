@@ -0,0 +1,14 @@
+package demo.todolist.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidQueryParameterException extends RuntimeException {
+
+    private final String field;
+
+    public InvalidQueryParameterException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+}
@@ -0,0 +1,19 @@
+package demo.todolist.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The password hashing pool is saturated; the client should retry after {@link #getRetryAfter()}.
+ */
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package demo.todolist.exception;
+
+/**
+ * The If-Match of a conditional write does not match the resource's current ETag (412).
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
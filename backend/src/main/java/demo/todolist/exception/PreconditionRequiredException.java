@@ -0,0 +1,11 @@
+package demo.todolist.exception;
+
+/**
+ * A conditional-only write arrived without If-Match (428).
+ */
+public class PreconditionRequiredException extends RuntimeException {
+
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -2,15 +2,84 @@ package demo.todolist.repository;
 
 
 import demo.todolist.entity.RefreshToken;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
     Optional<RefreshToken> findByTokenAndRevokedFalse(String token);
 
-    List<RefreshToken> findAllByOwnerIdAndRevokedFalse(UUID ownerId);
+    /* ---------- per-user cap ---------- */
+
+    @Query("""
+            select r from RefreshToken r
+            where r.owner.id = :ownerId and r.revoked = false
+            order by r.lastUsedAt desc, r.id desc
+            """)
+    List<RefreshToken> findActiveByRecency(@Param("ownerId") UUID ownerId, Pageable window);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update RefreshToken r set r.revoked = true
+            where r.owner.id = :ownerId and r.revoked = false
+              and (r.lastUsedAt < :lastUsedAt
+                   or (r.lastUsedAt = :lastUsedAt and r.id < :id))
+            """)
+    int revokeUsedBefore(@Param("ownerId") UUID ownerId,
+                         @Param("lastUsedAt") Instant lastUsedAt,
+                         @Param("id") UUID id);
+
+    /**
+     * Tokens issued before last_used_at existed keep NULL there, since ddl-auto=update never alters
+     * the column, and NULL never sorts or compares into the cap. They get their issue time instead:
+     * expires_at shifted back by the refresh TTL ({@code shiftSeconds} is negative).
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = """
+            UPDATE refresh_tokens
+            SET last_used_at = TIMESTAMPADD(SECOND, :shiftSeconds, expires_at)
+            WHERE last_used_at IS NULL
+            """, nativeQuery = true)
+    int backfillLastUsedAt(@Param("shiftSeconds") long shiftSeconds);
+
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.owner.id = :ownerId and r.revoked = false")
+    int revokeAllByOwnerId(@Param("ownerId") UUID ownerId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.owner.id = :ownerId")
+    int deleteAllByOwnerId(@Param("ownerId") UUID ownerId);
+
+    /* ---------- purge (each call is one short transaction) ---------- */
+
+    // query space: auto-flush only waits for pending refresh_tokens changes
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "DELETE FROM refresh_tokens WHERE revoked = true LIMIT :limit", nativeQuery = true)
+    int deleteRevokedChunk(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") Instant now, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -1,14 +1,221 @@
 package demo.todolist.repository;
 
 import demo.todolist.entity.Task;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, UUID> {
+public interface TaskRepository extends JpaRepository<Task, UUID>, JpaSpecificationExecutor<Task> {
+
+    /* ---------- filtered list (idx_task_owner_active_created / idx_task_owner_created) ---------- */
+
+    /**
+     * Only the filters that are set become predicates, so every combination is a plain
+     * owner [+ state] [+ range] condition the owner-leading indexes can seek on
+     * ({@code (:x is null or ...)} would leave the optimizer a single plan for all of them).
+     */
+    default List<Task> findFiltered(UUID ownerId,
+                                    Boolean active,
+                                    LocalDateTime createdFrom,
+                                    LocalDateTime createdTo,
+                                    Sort sort) {
+        return findAll(filtered(ownerId, active, createdFrom, createdTo), sort);
+    }
+
+    private static Specification<Task> filtered(UUID ownerId, Boolean active,
+                                                LocalDateTime createdFrom, LocalDateTime createdTo) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("owner").get("id"), ownerId));
+            if (active != null) {
+                predicates.add(cb.equal(root.get("isActive"), active));
+            }
+            if (createdFrom != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), createdFrom));
+            }
+            if (createdTo != null) {
+                predicates.add(cb.lessThan(root.<LocalDateTime>get("createdAt"), createdTo));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /* ---------- delta sync (idx_task_owner_change_seq) ---------- */
+
+    @Query("select t from Task t where t.owner.id = :ownerId and t.changeSeq > :since order by t.changeSeq, t.id")
+    List<Task> findChangedSince(@Param("ownerId") UUID ownerId, @Param("since") long since);
+
+    /* ---------- ownership-scoped access ---------- */
+
+    Optional<Task> findByIdAndOwnerId(UUID id, UUID ownerId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Task t where t.id = :id and t.owner.id = :ownerId")
+    int deleteByIdAndOwnerId(@Param("id") UUID id, @Param("ownerId") UUID ownerId);
+
+    /* ---------- optimistic concurrency (single-task ETags, PATCH) ---------- */
+
+    @Query("select t.version from Task t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Query("select t.version from Task t where t.id = :id and t.owner.id = :ownerId")
+    Optional<Long> findVersionByIdAndOwnerId(@Param("id") UUID id, @Param("ownerId") UUID ownerId);
+
+    @Query("select t.owner.id from Task t where t.id = :id")
+    Optional<UUID> findOwnerIdById(@Param("id") UUID id);
+
+    /**
+     * Writes the non-null fields only if the row is still at {@code version}; returns 0 when it is
+     * missing, foreign or has moved on. The entity is never loaded for this.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Task t
+            set t.title = coalesce(:title, t.title),
+                t.description = coalesce(:description, t.description),
+                t.isActive = coalesce(:active, t.isActive),
+                t.version = t.version + 1,
+                t.changeSeq = :changeSeq,
+                t.updatedAt = :updatedAt
+            where t.id = :id and t.owner.id = :ownerId and t.version = :version
+            """)
+    int patchIfVersion(@Param("id") UUID id,
+                       @Param("ownerId") UUID ownerId,
+                       @Param("version") long version,
+                       @Param("title") String title,
+                       @Param("description") String description,
+                       @Param("active") Boolean active,
+                       @Param("changeSeq") long changeSeq,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Flips the state in place and moves the version; returns 0 when the task is missing or foreign.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Task t
+            set t.isActive = case when t.isActive = true then false else true end,
+                t.version = t.version + 1,
+                t.changeSeq = :changeSeq,
+                t.updatedAt = :updatedAt
+            where t.id = :id and t.owner.id = :ownerId
+            """)
+    int toggleActive(@Param("id") UUID id,
+                     @Param("ownerId") UUID ownerId,
+                     @Param("changeSeq") long changeSeq,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /* ---------- keyset pagination on (created_at, id) ---------- */
+
+    /**
+     * With a state filter the page seeks on idx_task_owner_active_created, without one on
+     * idx_task_owner_created: separate queries, so each gets its own plan (see {@link #findFiltered}).
+     */
+    default List<Task> findFirstPage(UUID ownerId, Boolean active, Pageable window) {
+        return active == null
+                ? findFirstPageAnyState(ownerId, window)
+                : findFirstPageInState(ownerId, active, window);
+    }
+
+    default List<Task> findPageAfter(UUID ownerId, Boolean active, LocalDateTime createdAt, UUID id, Pageable window) {
+        return active == null
+                ? findPageAfterAnyState(ownerId, createdAt, id, window)
+                : findPageAfterInState(ownerId, active, createdAt, id, window);
+    }
+
+    @Query("""
+            select t from Task t
+            where t.owner.id = :ownerId
+            order by t.createdAt desc, t.id desc
+            """)
+    List<Task> findFirstPageAnyState(@Param("ownerId") UUID ownerId, Pageable window);
+
+    @Query("""
+            select t from Task t
+            where t.owner.id = :ownerId
+              and t.isActive = :active
+            order by t.createdAt desc, t.id desc
+            """)
+    List<Task> findFirstPageInState(@Param("ownerId") UUID ownerId,
+                                    @Param("active") boolean active,
+                                    Pageable window);
+
+    @Query("""
+            select t from Task t
+            where t.owner.id = :ownerId
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id))
+            order by t.createdAt desc, t.id desc
+            """)
+    List<Task> findPageAfterAnyState(@Param("ownerId") UUID ownerId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") UUID id,
+                                     Pageable window);
+
+    @Query("""
+            select t from Task t
+            where t.owner.id = :ownerId
+              and t.isActive = :active
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id))
+            order by t.createdAt desc, t.id desc
+            """)
+    List<Task> findPageAfterInState(@Param("ownerId") UUID ownerId,
+                                    @Param("active") boolean active,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable window);
+
+    /* ---------- streaming export ---------- */
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t from Task t where t.owner.id = :ownerId order by t.createdAt, t.id")
+    Stream<Task> streamAllByOwnerId(@Param("ownerId") UUID ownerId);
+
+    /* ---------- account deletion (each call is one short transaction) ---------- */
+
+    long countByOwnerId(UUID ownerId);
+
+    // query space: auto-flush only waits for pending tasks changes
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "tasks"))
+    @Query(value = "DELETE FROM tasks WHERE owner_id = :ownerId LIMIT :limit", nativeQuery = true)
+    int deleteChunkByOwnerId(@Param("ownerId") UUID ownerId, @Param("limit") int limit);
+
+    /* ---------- completion counter ---------- */
 
+    /**
+     * Flips counted_as_done only if the task is done and not counted yet; returns 1 for the single caller that wins.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Task t set t.countedAsDone = true where t.id = :id and t.isActive = false and t.countedAsDone = false")
+    int markCountedAsDone(@Param("id") UUID id);
 }
@@ -0,0 +1,39 @@
+package demo.todolist.repository;
+
+import demo.todolist.entity.TaskTombstone;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, UUID> {
+
+    /* ---------- delta sync (idx_tombstone_owner_change_seq) ---------- */
+
+    @Query("""
+            select t.taskId from TaskTombstone t
+            where t.ownerId = :ownerId and t.changeSeq > :since
+            order by t.changeSeq
+            """)
+    List<UUID> findDeletedTaskIdsSince(@Param("ownerId") UUID ownerId, @Param("since") long since);
+
+    /* ---------- purge (each call is one short transaction) ---------- */
+
+    // query space: auto-flush only waits for pending task_tombstones changes
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "task_tombstones"))
+    @Query(value = "DELETE FROM task_tombstones WHERE deleted_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteOlderThanChunk(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,42 @@
+package demo.todolist.repository;
+
+import demo.todolist.entity.TaskVersion;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface TaskVersionRepository extends JpaRepository<TaskVersion, UUID> {
+
+    @Query("select v.version from TaskVersion v where v.ownerId = :ownerId")
+    Optional<Long> findVersion(@Param("ownerId") UUID ownerId);
+
+    /**
+     * Creates the row at 1 or increments it, in one statement: the row is locked until commit, and no
+     * separate UPDATE-then-INSERT leaves a gap lock for two first writes to deadlock on.
+     */
+    // query space: auto-flush only waits for pending task_versions changes
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "task_versions"))
+    @Query(value = """
+            INSERT INTO task_versions (owner_id, version) VALUES (:ownerId, 1)
+            ON DUPLICATE KEY UPDATE version = version + 1
+            """, nativeQuery = true)
+    int increment(@Param("ownerId") UUID ownerId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TaskVersion v where v.ownerId = :ownerId")
+    int deleteByOwnerId(@Param("ownerId") UUID ownerId);
+}
@@ -1,12 +1,25 @@
 package demo.todolist.repository;
 
 import demo.todolist.entity.User;
+import demo.todolist.web.dto.AdminUserResponse;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
@@ -17,4 +30,68 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findUserByEmail(String email);
 
     Optional<User> findUserById(UUID id);
+
+    // select ... limit 1 instead of a full count(*)
+    boolean existsByIdIsNotNull();
+
+    boolean existsByUsername(String username);
+
+    /**
+     * Admin listing: selects only the DTO columns, so neither the entity nor its collections are loaded.
+     * {@code prefix} is a LIKE pattern escaped with '!' (or null for no filter). With a prefix the
+     * query is a plain range on uk_users_username; {@code (:prefix is null or ...)} would hide that.
+     */
+    default Page<AdminUserResponse> findAdminPage(String prefix, Pageable pageable) {
+        return prefix == null ? findAdminPageAll(pageable) : findAdminPageByPrefix(prefix, pageable);
+    }
+
+    @Query(value = """
+            select new demo.todolist.web.dto.AdminUserResponse(u.id, u.username, u.email, u.role, u.tasksDone)
+            from User u
+            """,
+            countQuery = "select count(u) from User u")
+    Page<AdminUserResponse> findAdminPageAll(Pageable pageable);
+
+    @Query(value = """
+            select new demo.todolist.web.dto.AdminUserResponse(u.id, u.username, u.email, u.role, u.tasksDone)
+            from User u
+            where u.username like :prefix escape '!'
+            """,
+            countQuery = """
+            select count(u) from User u
+            where u.username like :prefix escape '!'
+            """)
+    Page<AdminUserResponse> findAdminPageByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    boolean existsByEmail(String email);
+
+    interface Identity {
+        String getUsername();
+        String getEmail();
+    }
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.username as username, u.email as email from User u")
+    Stream<Identity> streamIdentities();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.tasksDone = u.tasksDone + 1 where u.id = :id")
+    int incrementTasksDone(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    /**
+     * Removes only the users row; unlike {@code delete(user)} it never loads the tasks / refreshTokens collections.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteRowById(@Param("id") UUID id);
 }
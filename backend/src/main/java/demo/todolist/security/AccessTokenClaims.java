@@ -0,0 +1,23 @@
+package demo.todolist.security;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verified content of an access token. Built once per token by {@link JwtUtil#parseAccessToken}.
+ */
+public record AccessTokenClaims(
+        UUID userId,
+        String username,
+        List<String> roles,
+        Instant expiresAt
+) {
+    public AccessTokenClaims {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
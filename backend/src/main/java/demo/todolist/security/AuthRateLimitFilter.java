@@ -0,0 +1,243 @@
+package demo.todolist.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.todolist.utils.DtoMapper;
+import demo.todolist.web.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits for the unauthenticated auth endpoints, checked before any BCrypt or DB work.
+ * Every request takes a token from its client-IP bucket; login and register also take one from
+ * the bucket of the username in the body, so one account can't be stuffed from many addresses.
+ * The availability check gets its own, looser per-IP bucket: the signup form calls it as the user types,
+ * but it must not become a free oracle for enumerating accounts.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/auth/login", "/api/auth/register", "/api/auth/refresh");
+    private static final String AVAILABILITY_PATH = "/api/auth/availability";
+    private static final Set<String> PATHS_WITH_USERNAME = Set.of(
+            "/api/auth/login", "/api/auth/register");
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final boolean enabled;
+    private final StripedRateLimiter byIp;
+    private final StripedRateLimiter byUsername;
+    private final StripedRateLimiter availabilityByIp;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByUsername;
+    private final Counter rejectedAvailabilityByIp;
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    public AuthRateLimitFilter(MeterRegistry meterRegistry,
+                               @Value("${auth.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${auth.rate-limit.ip.capacity:30}") int ipCapacity,
+                               @Value("${auth.rate-limit.ip.refill-per-minute:60}") double ipRefillPerMinute,
+                               @Value("${auth.rate-limit.username.capacity:5}") int usernameCapacity,
+                               @Value("${auth.rate-limit.username.refill-per-minute:5}") double usernameRefillPerMinute,
+                               @Value("${auth.rate-limit.availability.capacity:60}") int availabilityCapacity,
+                               @Value("${auth.rate-limit.availability.refill-per-minute:120}") double availabilityRefillPerMinute,
+                               @Value("${auth.rate-limit.stripes:64}") int stripes,
+                               @Value("${auth.rate-limit.max-keys:100000}") int maxKeys) {
+        this.enabled = enabled;
+        this.byIp = new StripedRateLimiter(ipCapacity, ipRefillPerMinute / 60.0, stripes, maxKeys);
+        this.byUsername = new StripedRateLimiter(usernameCapacity, usernameRefillPerMinute / 60.0, stripes, maxKeys);
+        this.availabilityByIp = new StripedRateLimiter(availabilityCapacity, availabilityRefillPerMinute / 60.0, stripes, maxKeys);
+        this.rejectedByIp = Counter.builder("auth.rate_limit.rejected").tag("key", "ip").register(meterRegistry);
+        this.rejectedByUsername = Counter.builder("auth.rate_limit.rejected").tag("key", "username").register(meterRegistry);
+        this.rejectedAvailabilityByIp = Counter.builder("auth.rate_limit.rejected").tag("key", "availability_ip").register(meterRegistry);
+        Gauge.builder("auth.rate_limit.buckets", byIp, StripedRateLimiter::size).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("auth.rate_limit.buckets", byUsername, StripedRateLimiter::size).tag("key", "username").register(meterRegistry);
+        Gauge.builder("auth.rate_limit.buckets", availabilityByIp, StripedRateLimiter::size).tag("key", "availability_ip").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return "GET".equals(request.getMethod())
+                ? !AVAILABILITY_PATH.equals(path)
+                : !"POST".equals(request.getMethod()) || !LIMITED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req,
+                                    HttpServletResponse res,
+                                    FilterChain chain) throws ServletException, IOException {
+
+        if (AVAILABILITY_PATH.equals(req.getServletPath())) {
+            long waitNanos = availabilityByIp.tryAcquire(req.getRemoteAddr());
+            if (waitNanos > 0) {
+                rejectedAvailabilityByIp.increment();
+                reject(req, res, waitNanos);
+                return;
+            }
+            chain.doFilter(req, res);
+            return;
+        }
+
+        long waitNanos = byIp.tryAcquire(req.getRemoteAddr());
+        if (waitNanos > 0) {
+            rejectedByIp.increment();
+            reject(req, res, waitNanos);
+            return;
+        }
+
+        HttpServletRequest forward = req;
+        if (PATHS_WITH_USERNAME.contains(req.getServletPath())) {
+            CachedBodyRequest cached = CachedBodyRequest.of(req);
+            forward = cached;
+            String username = extractUsername(cached.body);
+            if (username != null) {
+                waitNanos = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT));
+                if (waitNanos > 0) {
+                    rejectedByUsername.increment();
+                    reject(req, res, waitNanos);
+                    return;
+                }
+            }
+        }
+        chain.doFilter(forward, res);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sweep-interval:PT1M}")
+    public void evictIdleBuckets() {
+        byIp.evictIdle();
+        byUsername.evictIdle();
+        availabilityByIp.evictIdle();
+    }
+
+    private void reject(HttpServletRequest req, HttpServletResponse res, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        ErrorResponse body = DtoMapper.toErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS,
+                "Too many authentication attempts, try again later",
+                req.getRequestURI());
+
+        res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(res.getOutputStream(), body);
+    }
+
+    // streams the top-level "username" field only; malformed bodies are left for the controller to reject
+    static String extractUsername(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("username".equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? p.getText() : null;
+                }
+                p.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Buffers the first {@link #MAX_BODY_BYTES} of the body so it can be inspected here;
+     * the controller then reads the buffered prefix followed by whatever is left in the original stream.
+     */
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final boolean complete;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, boolean complete) {
+            super(request);
+            this.body = body;
+            this.complete = complete;
+        }
+
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES);
+            return new CachedBodyRequest(request, body, body.length < MAX_BODY_BYTES);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream in = complete
+                    ? new ByteArrayInputStream(body)
+                    : new SequenceInputStream(new ByteArrayInputStream(body), super.getInputStream());
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    finished = b == -1;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = in.read(b, off, len);
+                    finished = n == -1;
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package demo.todolist.security;
+
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Principal put in the security context by {@link JwtAuthenticationFilter}.
+ * Carries everything task endpoints need about the caller, so they don't query the users table.
+ */
+public record AuthenticatedUser(UUID id, String username, UserRole role) implements AuthenticatedPrincipal {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    static AuthenticatedUser of(AccessTokenClaims claims) {
+        return new AuthenticatedUser(claims.userId(), claims.username(), roleOf(claims.roles()));
+    }
+
+    private static UserRole roleOf(List<String> roles) {
+        return roles.contains("ROLE_" + UserRole.ADMIN.name()) ? UserRole.ADMIN : UserRole.USER;
+    }
+
+    public boolean isAdmin() {
+        return role == UserRole.ADMIN;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,43 @@
+package demo.todolist.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost factor for the machine we run on: the highest cost in
+ * {@code [minCost, maxCost]} whose measured hash time stays within the target.
+ * Each extra cost step doubles the work, so the search walks up from {@code minCost}
+ * and stops before the next step would overshoot.
+ */
+public final class BcryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-Passw0rd!";
+
+    public record Result(int cost, Duration hashTime) {}
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static Result calibrate(Duration target, int minCost, int maxCost) {
+        if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+            throw new IllegalArgumentException("Invalid BCrypt cost range [" + minCost + ", " + maxCost + "]");
+        }
+
+        measure(minCost);                                  // warm-up (class loading, JIT)
+        int cost = minCost;
+        Duration time = measure(cost);
+        while (cost < maxCost && time.multipliedBy(2).compareTo(target) <= 0) {
+            cost++;
+            time = measure(cost);
+        }
+        return new Result(cost, time);
+    }
+
+    static Duration measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
@@ -16,7 +16,6 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
 @Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -38,21 +37,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (bearer != null && bearer.startsWith("Bearer ")) {
             String token = bearer.substring(7);
 
-            if (jwtUtil.isTokenValid(token)) {
-                String username = jwtUtil.extractUsername(token);
-
-                List<String> roleStrings = jwtUtil.extractRoles(token);
-                if (roleStrings == null) roleStrings = List.of();
-
-                Collection<? extends GrantedAuthority> authorities = roleStrings.stream()
+            jwtUtil.parseAccessToken(token).ifPresent(claims -> {
+                Collection<? extends GrantedAuthority> authorities = claims.roles().stream()
                         .map(SimpleGrantedAuthority::new)
                         .toList();
 
+                // tokens issued before the uid claim fall back to the plain username
+                Object principal = claims.userId() != null
+                        ? AuthenticatedUser.of(claims)
+                        : claims.username();
+
                 Authentication auth = new UsernamePasswordAuthenticationToken(
-                        username, null, authorities);
+                        principal, null, authorities);
 
                 SecurityContextHolder.getContext().setAuthentication(auth);
-            }
+            });
         }
         chain.doFilter(req, res);
     }
@@ -8,14 +8,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.security.core.GrantedAuthority;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
     private static final String CLAIM_ROLES = "roles";      // ключът за claim-а
+    private static final String CLAIM_USER_ID = "uid";
 
     @Value("${jwt.secret}")
     private String secret;
@@ -23,15 +27,25 @@ public class JwtUtil {
     @Value("${jwt.access-expiration}")   // 900_000 ms (= 15 мин)
     private long accessTtlMillis;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     private SecretKey secretKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
 
     @PostConstruct
     void init() {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
     }
 
 
-    public String generateAccessToken(String username,
+    public String generateAccessToken(UUID userId,
+                                      String username,
                                       Collection<? extends GrantedAuthority> authorities) {
         List<String> roles = authorities.stream()
                 .map(GrantedAuthority::getAuthority)
@@ -40,6 +54,7 @@ public class JwtUtil {
         long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(username)
+                .claim(CLAIM_USER_ID, userId.toString())
                 .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + accessTtlMillis))
@@ -47,37 +62,51 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verifies the token once and returns its claims, or empty if it is invalid or expired.
+     * Tokens seen recently are answered from a bounded cache without re-checking the HMAC.
+     */
+    public Optional<AccessTokenClaims> parseAccessToken(String token) {
+        Instant now = Instant.now();
+        String key = VerifiedTokenCache.keyOf(token);
+
+        AccessTokenClaims cached = verifiedTokens.get(key, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        try {
+            Claims claims = extractAllClaims(token);
+            if (claims.getExpiration() == null) {
+                return Optional.empty();
+            }
+            AccessTokenClaims parsed = new AccessTokenClaims(
+                    extractUserId(claims),
+                    claims.getSubject(),
+                    extractRoles(claims),
+                    claims.getExpiration().toInstant());
+            verifiedTokens.put(key, parsed);
+            return Optional.of(parsed);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();   // невалиден / модифициран / изтекъл токен
+        }
     }
 
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
 
-    @SuppressWarnings("unchecked")
-    public List<String> extractRoles(String token) {
-        return extractAllClaims(token).get(CLAIM_ROLES, List.class);
+    private Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    private UUID extractUserId(Claims claims) {
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        return userId == null ? null : UUID.fromString(userId);     // токени отпреди uid claim-а
     }
 
-    public boolean isTokenValid(String token) {
-        try {
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;   // невалиден / модифициран токен
+    private List<String> extractRoles(Claims claims) {
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (roles == null) {
+            return List.of();
         }
-    }
-
-    public boolean validateToken(String token, String username) {
-        return username.equals(extractUsername(token)) && isTokenValid(token);
+        return roles.stream().map(String::valueOf).toList();
     }
 }
@@ -0,0 +1,172 @@
+package demo.todolist.security;
+
+import demo.todolist.utils.Hashing;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter keyed by string.
+ * <p>
+ * Keys are reduced to a 64-bit hash and spread over lock stripes. Every stripe is an access-ordered
+ * map, and every acquire refills the bucket it touches, so the eldest entry is always the least
+ * recently refilled one (the one closest to full again). A bucket that has been idle long enough to
+ * refill completely is the same as no bucket, so {@link #evictIdle()} drops such entries from the
+ * old end without changing any decision. When a stripe is at its limit, a new key evicts the
+ * eldest bucket in O(1); evicted buckets that were still active are counted in
+ * {@link #evictionCount()}. New keys are never let through unmetered.
+ */
+public class StripedRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+
+    public StripedRateLimiter(int capacity, double refillPerSecond, int stripes, int maxEntries) {
+        this(capacity, refillPerSecond, stripes, maxEntries, System::nanoTime);
+    }
+
+    StripedRateLimiter(int capacity, double refillPerSecond, int stripes, int maxEntries, LongSupplier nanoClock) {
+        if (capacity <= 0 || refillPerSecond <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("capacity and refill must be positive, stripes a power of two");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / NANOS_PER_SECOND;
+        this.idleNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.nanoClock = nanoClock;
+        this.stripeMask = stripes - 1;
+        this.stripes = new Stripe[stripes];
+        int maxEntriesPerStripe = Math.max(1, maxEntries / stripes);
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(maxEntriesPerStripe);
+        }
+    }
+
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return 0 if the request may pass, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        long hash = Hashing.hash64(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        long now = nanoClock.getAsLong();
+
+        stripe.lock.lock();
+        try {
+            return stripe.acquire(hash, now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** Drops buckets that have refilled completely. */
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.evictIdle(now);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public long evictionCount() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.evictions;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long lastRefill;
+
+        Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+
+    private final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Bucket> buckets;
+        long evictions;
+        long now;
+
+        Stripe(int maxEntries) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Bucket> eldest) {
+                    if (size() <= maxEntries) {
+                        return false;
+                    }
+                    if (!isIdle(eldest.getValue(), now)) {
+                        evictions++;
+                    }
+                    return true;
+                }
+            };
+        }
+
+        long acquire(long hash, long now) {
+            this.now = now;
+            Bucket bucket = buckets.get(hash);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                buckets.put(hash, bucket);
+            }
+
+            double available = Math.min(capacity, bucket.tokens + (now - bucket.lastRefill) * tokensPerNano);
+            bucket.lastRefill = now;
+            if (available >= 1.0) {
+                bucket.tokens = available - 1.0;
+                return 0;
+            }
+            bucket.tokens = available;
+            return (long) Math.ceil((1.0 - available) / tokensPerNano);
+        }
+
+        // eldest first: stops at the first bucket that is still refilling
+        void evictIdle(long now) {
+            Iterator<Bucket> it = buckets.values().iterator();
+            while (it.hasNext() && isIdle(it.next(), now)) {
+                it.remove();
+            }
+        }
+
+        boolean isIdle(Bucket bucket, long now) {
+            return now - bucket.lastRefill >= idleNanos;
+        }
+    }
+}
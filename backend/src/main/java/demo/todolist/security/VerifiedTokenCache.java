@@ -0,0 +1,82 @@
+package demo.todolist.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bounded cache of access tokens whose signature was already verified.
+ * Keyed by the SHA-256 of the whole token (never by a part of it), entries die at token expiry.
+ * When full, an older entry is evicted to make room, so new tokens are still cached.
+ */
+class VerifiedTokenCache {
+
+    // cloned per call: a ThreadLocal would allocate a digest for every virtual thread anyway
+    private static final MessageDigest SHA_256_PROTOTYPE;
+
+    static {
+        try {
+            SHA_256_PROTOTYPE = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private final Cache<String, AccessTokenClaims> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    static String keyOf(String token) {
+        byte[] digest = newDigest().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return (MessageDigest) SHA_256_PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+    }
+
+    AccessTokenClaims get(String key, Instant now) {
+        AccessTokenClaims claims = entries.getIfPresent(key);
+        // expiry is also checked here: the cache's clock only approximates the exp claim
+        return claims == null || claims.isExpired(now) ? null : claims;
+    }
+
+    void put(String key, AccessTokenClaims claims) {
+        entries.put(key, claims);
+    }
+
+    /** Each entry lives until its token's exp claim; reads and re-puts don't extend it. */
+    private static final class UntilTokenExpiry implements Expiry<String, AccessTokenClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, AccessTokenClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AccessTokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, AccessTokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
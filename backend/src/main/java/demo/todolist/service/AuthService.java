@@ -49,10 +49,10 @@ public class AuthService {
         String username = auth.getName();
         Collection<? extends GrantedAuthority> roles = auth.getAuthorities();
 
-        String access = jwtUtil.generateAccessToken(username, roles);
+        CachedUser owner = userService.findUser(username);
+        String access = jwtUtil.generateAccessToken(owner.id(), username, roles);
 
-        User owner = userService.findUser(username);
-        RefreshToken rt = refreshService.createTokenForUser(owner, refreshTtl);
+        RefreshToken rt = refreshService.createTokenForUser(userService.getUserReference(owner.id()), refreshTtl);
 
         return new LoginResponse(access, rt.getToken());
     }
@@ -67,12 +67,13 @@ public class AuthService {
             refreshService.revoke(stored.getToken());
             throw new BadCredentialsException("Refresh token expired");
         }
+        refreshService.markUsed(stored);
 
         User owner = stored.getOwner();
         List<GrantedAuthority> auths = List.of(
                 new SimpleGrantedAuthority("ROLE_" + owner.getRole().name()));
 
-        String newAccess = jwtUtil.generateAccessToken(owner.getUsername(), auths);
+        String newAccess = jwtUtil.generateAccessToken(owner.getId(), owner.getUsername(), auths);
 
         return new LoginResponse(newAccess, stored.getToken());
     }
@@ -0,0 +1,217 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Answers "is this username / email free?" for the signup form.
+ * <p>
+ * Bloom filters over every username and email (lower-cased) give a definite "free" from memory;
+ * only a possible match is checked against the database. Filters are loaded on startup and fed
+ * by {@link #recordRegistered}. Deleted users can't be removed from a Bloom filter, so
+ * {@link #recordDeleted} only counts them and the filters are rebuilt once enough are stale.
+ * Until the first load finishes every check goes to the database.
+ */
+@Slf4j
+@Service
+public class AvailabilityService {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final double staleRatioForRebuild;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantLock swapLock = new ReentrantLock();
+    private volatile Filters filters;                 // null until loaded
+    private List<String[]> registeredDuringRebuild;   // guarded by swapLock
+    private final AtomicLong deletedSinceBuild = new AtomicLong();
+
+    private final Counter answeredFromMemory;
+    private final Counter answeredFromDatabase;
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, long entries) {}
+
+    public AvailabilityService(UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${users.availability.expected-users:1000000}") long expectedUsers,
+                               @Value("${users.availability.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${users.availability.rebuild-stale-ratio:0.1}") double staleRatioForRebuild) {
+        this.userRepository = userRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.staleRatioForRebuild = staleRatioForRebuild;
+
+        this.answeredFromMemory = Counter.builder("users.availability.checks")
+                .tag("source", "memory").register(meterRegistry);
+        this.answeredFromDatabase = Counter.builder("users.availability.checks")
+                .tag("source", "database").register(meterRegistry);
+        registerFilterGauges(meterRegistry, "username", Filters::usernames);
+        registerFilterGauges(meterRegistry, "email", Filters::emails);
+    }
+
+    /* ---------- checks ---------- */
+
+    public boolean isUsernameAvailable(String username) {
+        Filters current = filters;
+        return isAvailable(username, current == null ? null : current.usernames(),
+                u -> userRepository.existsByUsername(u));
+    }
+
+    public boolean isEmailAvailable(String email) {
+        Filters current = filters;
+        return isAvailable(email, current == null ? null : current.emails(),
+                e -> userRepository.existsByEmail(e));
+    }
+
+    private boolean isAvailable(String value, BloomFilter filter, Predicate<String> existsInDb) {
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            answeredFromMemory.increment();
+            return true;
+        }
+        answeredFromDatabase.increment();
+        return !existsInDb.test(value);
+    }
+
+    /* ---------- updates ---------- */
+
+    public void recordRegistered(String username, String email) {
+        // under the swap lock, so a sign-up lands either in the old filters plus the rebuild log, or in the new ones
+        swapLock.lock();
+        try {
+            if (filters != null) {
+                add(filters, username, email);
+            }
+            if (registeredDuringRebuild != null) {
+                registeredDuringRebuild.add(new String[]{username, email});
+            }
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    public void recordDeleted() {
+        deletedSinceBuild.incrementAndGet();
+    }
+
+    /* ---------- loading ---------- */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${users.availability.rebuild-check-interval:PT5M}",
+               fixedDelayString = "${users.availability.rebuild-check-interval:PT5M}")
+    public void rebuildIfStale() {
+        Filters current = filters;
+        if (current == null || deletedSinceBuild.get() > Math.max(1, current.entries() * staleRatioForRebuild)) {
+            rebuild();
+        }
+    }
+
+    void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;                                   // a rebuild is already running
+        }
+        try {
+            doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        swapLock.lock();
+        try {
+            registeredDuringRebuild = new ArrayList<>();
+        } finally {
+            swapLock.unlock();
+        }
+        long deletedBefore = deletedSinceBuild.get();
+
+        long users = userRepository.count();
+        long capacity = Math.max(expectedUsers, users * 2);
+        Filters fresh = new Filters(
+                new BloomFilter(capacity, falsePositiveRate),
+                new BloomFilter(capacity, falsePositiveRate),
+                users);
+
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (var identities = userRepository.streamIdentities()) {
+                    identities.forEach(id -> add(fresh, id.getUsername(), id.getEmail()));
+                }
+            });
+        } catch (RuntimeException ex) {
+            swapLock.lock();
+            try {
+                registeredDuringRebuild = null;       // keep serving from the previous filters
+            } finally {
+                swapLock.unlock();
+            }
+            throw ex;
+        }
+
+        swapLock.lock();
+        try {
+            // sign-ups that committed while we were scanning may be missing from the snapshot
+            registeredDuringRebuild.forEach(pair -> add(fresh, pair[0], pair[1]));
+            registeredDuringRebuild = null;
+            filters = fresh;
+            deletedSinceBuild.addAndGet(-deletedBefore);
+        } finally {
+            swapLock.unlock();
+        }
+        log.info("Availability filters built for {} users ({} KiB each)", users, fresh.usernames().sizeInBytes() / 1024);
+    }
+
+    private static void add(Filters target, String username, String email) {
+        if (username != null) {
+            target.usernames().put(normalize(username));
+        }
+        if (email != null) {
+            target.emails().put(normalize(email));
+        }
+    }
+
+    // lower-cased so a case-insensitive unique index (MySQL's default collation) never gets a false "free"
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private void registerFilterGauges(MeterRegistry registry, String field, Function<Filters, BloomFilter> pick) {
+        Gauge.builder("users.availability.bloom.fpp", this,
+                        s -> s.filters == null ? Double.NaN : pick.apply(s.filters).estimatedFalsePositiveRate())
+                .tag("field", field)
+                .description("Estimated false-positive rate of the Bloom filter")
+                .register(registry);
+        Gauge.builder("users.availability.bloom.bytes", this,
+                        s -> s.filters == null ? 0 : pick.apply(s.filters).sizeInBytes())
+                .tag("field", field)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
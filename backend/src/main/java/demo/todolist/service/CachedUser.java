@@ -0,0 +1,17 @@
+package demo.todolist.service;
+
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+
+import java.util.UUID;
+
+/**
+ * What {@link UserCache} keeps of a user: immutable, so one instance can be shared by every request.
+ * The entity itself (with its lazy collections) never leaves the persistence context that loaded it.
+ */
+public record CachedUser(UUID id, String username, UserRole role, String passwordHash) {
+
+    public static CachedUser of(User user) {
+        return new CachedUser(user.getId(), user.getUsername(), user.getRole(), user.getPassword());
+    }
+}
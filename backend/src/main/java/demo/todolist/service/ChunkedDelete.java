@@ -0,0 +1,30 @@
+package demo.todolist.service;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Repeats a {@code DELETE ... LIMIT n} until a chunk comes back short. The size is checked up front:
+ * with 0 or less every chunk would count as full and the loop would never end.
+ */
+final class ChunkedDelete {
+
+    private final int chunkSize;
+
+    ChunkedDelete(String property, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(property + " must be at least 1, was " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /** Calls {@code chunk} with the chunk size until it deletes fewer rows than that; returns the total. */
+    long run(IntUnaryOperator chunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = chunk.applyAsInt(chunkSize);
+            total += deleted;
+        } while (deleted >= chunkSize);
+        return total;
+    }
+}
@@ -0,0 +1,57 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Deletes revoked and expired refresh tokens in bounded chunks.
+ * Every chunk is its own {@code DELETE ... LIMIT n} transaction, so row locks are held only briefly.
+ */
+@Slf4j
+@Component
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenRepository repo;
+    private final ChunkedDelete chunks;
+    private final Counter revokedPurged;
+    private final Counter expiredPurged;
+    private final Timer purgeTimer;
+
+    public RefreshTokenPurgeJob(RefreshTokenRepository repo,
+                                MeterRegistry meterRegistry,
+                                @Value("${refresh-tokens.purge.chunk-size:1000}") int chunkSize) {
+        this.repo = repo;
+        this.chunks = new ChunkedDelete("refresh-tokens.purge.chunk-size", chunkSize);
+        this.revokedPurged = Counter.builder("refresh_tokens.purged")
+                .tag("reason", "revoked")
+                .register(meterRegistry);
+        this.expiredPurged = Counter.builder("refresh_tokens.purged")
+                .tag("reason", "expired")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("refresh_tokens.purge")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${refresh-tokens.purge.initial-delay:PT5M}",
+               fixedDelayString = "${refresh-tokens.purge.interval:PT1H}")
+    public void purge() {
+        purgeTimer.record(() -> {
+            long revoked = chunks.run(repo::deleteRevokedChunk);
+            revokedPurged.increment(revoked);
+
+            Instant now = Instant.now();
+            long expired = chunks.run(limit -> repo.deleteExpiredChunk(now, limit));
+            expiredPurged.increment(expired);
+
+            log.info("Purged {} revoked and {} expired refresh tokens", revoked, expired);
+        });
+    }
+}
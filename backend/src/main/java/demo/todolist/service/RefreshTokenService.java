@@ -4,9 +4,14 @@ import demo.todolist.entity.RefreshToken;
 import demo.todolist.entity.User;
 import demo.todolist.repository.RefreshTokenRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -17,6 +22,13 @@ public class RefreshTokenService {
 
     private final RefreshTokenRepository repo;
 
+    // <= 0 изключва лимита
+    @Value("${refresh-tokens.max-active-per-user:10}")
+    private int maxActivePerUser;
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshTtlMillis;
+
     /* ---------- CRUD ---------- */
 
     public RefreshToken save(RefreshToken rt) {
@@ -35,21 +47,53 @@ public class RefreshTokenService {
         });
     }
 
+    public void markUsed(RefreshToken rt) {                  // при refresh
+        rt.setLastUsedAt(Instant.now());
+        repo.save(rt);
+    }
+
     public void revokeAllForUser(UUID ownerId) {             // при delete user
-        List<RefreshToken> list = repo.findAllByOwnerIdAndRevokedFalse(ownerId);
-        list.forEach(rt -> rt.setRevoked(true));
-        repo.saveAll(list);
+        repo.revokeAllByOwnerId(ownerId);
+    }
+
+    /**
+     * Gives tokens from before last_used_at their issue time (expiry minus the refresh TTL),
+     * so the per-user cap can order and revoke them like any other.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLastUsedAt() {
+        repo.backfillLastUsedAt(-Duration.ofMillis(refreshTtlMillis).toSeconds());
     }
 
     /* ---------- helpers ---------- */
 
     public RefreshToken createTokenForUser(User owner, long ttlMillis) {
+        Instant now = Instant.now();
         RefreshToken rt = RefreshToken.builder()
                 .token(UUID.randomUUID().toString())
                 .owner(owner)
-                .expiresAt(Instant.now().plusMillis(ttlMillis))
+                .expiresAt(now.plusMillis(ttlMillis))
+                .lastUsedAt(now)
                 .revoked(false)
                 .build();
-        return repo.save(rt);
+        RefreshToken saved = repo.save(rt);
+        enforceCap(owner.getId());
+        return saved;
+    }
+
+    /**
+     * Keeps at most {@code maxActivePerUser} live tokens for the owner.
+     * Finds the oldest token that may stay, then revokes everything used before it in one update.
+     */
+    private void enforceCap(UUID ownerId) {
+        if (maxActivePerUser <= 0) {
+            return;
+        }
+        List<RefreshToken> cutoff = repo.findActiveByRecency(ownerId, PageRequest.of(maxActivePerUser - 1, 1));
+        if (cutoff.isEmpty()) {
+            return;                                          // под лимита
+        }
+        RefreshToken oldestKept = cutoff.get(0);
+        repo.revokeUsedBefore(ownerId, oldestKept.getLastUsedAt(), oldestKept.getId());
     }
 }
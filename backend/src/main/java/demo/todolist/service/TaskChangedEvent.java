@@ -0,0 +1,11 @@
+package demo.todolist.service;
+
+import demo.todolist.web.dto.TaskChangeResponse;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link TaskService} inside the write transaction; {@link TaskEventBus} only sees it after commit.
+ */
+public record TaskChangedEvent(UUID ownerId, TaskChangeResponse change) {
+}
@@ -0,0 +1,213 @@
+package demo.todolist.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process fan-out of committed task changes to the owner's SSE subscribers.
+ * <p>
+ * An idle subscriber is an {@link SseEmitter} on a suspended servlet request plus an empty bounded
+ * queue, no thread. Publishing only offers to those queues; a subscriber with pending messages gets
+ * one drain task on the task executor, which is the only place that writes to its connection.
+ * When a queue is full the subscriber is either disconnected (the browser's EventSource reconnects
+ * and reloads) or loses its oldest message, depending on {@code tasks.stream.overflow-policy}.
+ */
+@Slf4j
+@Service
+public class TaskEventBus {
+
+    public enum OverflowPolicy { DISCONNECT, DROP_OLDEST }
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxPerUser;
+    private final long timeoutMillis;
+
+    private final Map<UUID, Queue<Subscriber>> byOwner = new ConcurrentHashMap<>();
+    private final Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+
+    private final Counter droppedMessages;
+    private final Counter disconnectedSlow;
+
+    // payload of one SSE frame; a null name is a comment (connect / heartbeat)
+    private record Outgoing(String name, Object data) {}
+
+    private static final Outgoing CONNECTED = new Outgoing(null, "connected");
+    private static final Outgoing HEARTBEAT = new Outgoing(null, "heartbeat");
+
+    public TaskEventBus(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                        MeterRegistry meterRegistry,
+                        @Value("${tasks.stream.buffer-size:64}") int bufferSize,
+                        @Value("${tasks.stream.overflow-policy:DISCONNECT}") OverflowPolicy overflowPolicy,
+                        @Value("${tasks.stream.max-per-user:8}") int maxPerUser,
+                        @Value("${tasks.stream.timeout:PT30M}") Duration timeout) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.maxPerUser = maxPerUser;
+        this.timeoutMillis = timeout.toMillis();
+
+        Gauge.builder("tasks.stream.subscribers", all, Set::size).register(meterRegistry);
+        this.droppedMessages = Counter.builder("tasks.stream.dropped")
+                .tag("reason", "drop-oldest").register(meterRegistry);
+        this.disconnectedSlow = Counter.builder("tasks.stream.dropped")
+                .tag("reason", "disconnect").register(meterRegistry);
+    }
+
+    /* ---------- subscribe ---------- */
+
+    public SseEmitter subscribe(UUID ownerId) {
+        return subscribe(ownerId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(UUID ownerId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(ownerId, emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        // added inside compute so a concurrent remove() can't drop the queue we are adding to
+        Queue<Subscriber> owned = byOwner.compute(ownerId, (id, existing) -> {
+            Queue<Subscriber> queue = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            queue.add(subscriber);
+            return queue;
+        });
+        all.add(subscriber);
+        // a client that keeps reconnecting without closing must not pile up connections
+        while (owned.size() > maxPerUser) {
+            Subscriber oldest = owned.poll();
+            if (oldest != null) {
+                close(oldest);
+            }
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+
+        enqueue(subscriber, CONNECTED);
+        return emitter;
+    }
+
+    /* ---------- publish ---------- */
+
+    @TransactionalEventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        Queue<Subscriber> owned = byOwner.get(event.ownerId());
+        if (owned == null) {
+            return;
+        }
+        Outgoing message = new Outgoing(event.change().type().name().toLowerCase(Locale.ROOT), event.change());
+        for (Subscriber subscriber : owned) {
+            enqueue(subscriber, message);
+        }
+    }
+
+    // also how dead connections are found: the write fails and the subscriber is removed
+    @Scheduled(fixedDelayString = "${tasks.stream.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : all) {
+            enqueue(subscriber, HEARTBEAT);
+        }
+    }
+
+    public int subscriberCount() {
+        return all.size();
+    }
+
+    /* ---------- internals ---------- */
+
+    private void enqueue(Subscriber subscriber, Outgoing message) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.queue.offer(message)) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                disconnectedSlow.increment();
+                close(subscriber);
+                return;
+            }
+            do {
+                subscriber.queue.poll();
+                droppedMessages.increment();
+            } while (!subscriber.queue.offer(message));
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Outgoing message;
+            while (!subscriber.closed && (message = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(message.name() == null
+                        ? SseEmitter.event().comment(String.valueOf(message.data()))
+                        : SseEmitter.event().name(message.name()).data(message.data(), MediaType.APPLICATION_JSON));
+            }
+        } catch (Exception ex) {                      // IOException on a closed socket, IllegalStateException after completion
+            log.debug("Dropping task stream subscriber of {}: {}", subscriber.ownerId, ex.toString());
+            close(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // something may have been enqueued after the last poll but before draining was reset
+        if (!subscriber.closed && !subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException ignored) {
+            // already completed by the container
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.queue.clear();
+        all.remove(subscriber);
+        byOwner.computeIfPresent(subscriber.ownerId, (id, owned) -> {
+            owned.remove(subscriber);
+            return owned.isEmpty() ? null : owned;
+        });
+    }
+
+    private static final class Subscriber {
+
+        final UUID ownerId;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Outgoing> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(UUID ownerId, SseEmitter emitter, ArrayBlockingQueue<Outgoing> queue) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
@@ -1,101 +1,470 @@
 package demo.todolist.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import demo.todolist.entity.Task;
-import demo.todolist.entity.User;
+import demo.todolist.entity.TaskTombstone;
+import demo.todolist.exception.InvalidQueryParameterException;
+import demo.todolist.exception.PreconditionFailedException;
 import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.TaskTombstoneRepository;
+import demo.todolist.security.AuthenticatedUser;
 import demo.todolist.utils.DtoMapper;
+import demo.todolist.utils.TaskCursor;
+import demo.todolist.web.dto.TaskBatchOperation;
+import demo.todolist.web.dto.TaskBatchOperationType;
+import demo.todolist.web.dto.TaskBatchResult;
+import demo.todolist.web.dto.TaskChangeResponse;
+import demo.todolist.web.dto.TaskChangeType;
+import demo.todolist.web.dto.TaskPageResponse;
+import demo.todolist.web.dto.TaskPatchRequest;
 import demo.todolist.web.dto.TaskRequest;
 import demo.todolist.web.dto.TaskResponse;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Every write bumps the owner's task version (task_versions, the source of the ETags on /api/tasks)
+ * before it touches a tasks row, so concurrent writes for one user always lock in the same order.
+ * The bumped version is stamped on the written rows as their change_seq, and deletes leave a
+ * {@link TaskTombstone} with it, which is what {@link TaskSyncService} reads deltas from.
+ */
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
     private final UserService userService;
+    private final TaskVersionService taskVersionService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public TaskResponse createTask(TaskRequest request) {
-        User owner = userService.getCurrentUser();
-        Task task = DtoMapper.toTaskEntity(request, owner);
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        long changeSeq = taskVersionService.bumpTaskVersion(principal.id());
+        Task task = DtoMapper.toTaskEntity(request, userService.getUserReference(principal.id()));
         task.setActive(true);
+        stamp(task, changeSeq);
         Task savedTask = taskRepository.save(task);
-        return DtoMapper.toTaskResponse(savedTask);
+        TaskResponse response = DtoMapper.toTaskResponse(savedTask, principal.username());
+        publish(principal.id(), TaskChangeType.CREATED, savedTask.getId(), response);
+        return response;
     }
 
+    /**
+     * The current user's tasks, optionally filtered by state and a created_at range
+     * ({@code createdFrom} inclusive, {@code createdTo} exclusive), ordered by created_at then id.
+     */
     @Transactional(readOnly = true)
-    public List<TaskResponse> getTasksForCurrentUser() {
-        User owner = userService.getCurrentUser();
-        return owner.getTasks()
+    public List<TaskResponse> getTasksForCurrentUser(Boolean active, LocalDateTime createdFrom,
+                                                     LocalDateTime createdTo, String direction) {
+        Sort.Direction dir = validateListQuery(createdFrom, createdTo, direction);
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        return taskRepository.findFiltered(principal.id(), active, createdFrom, createdTo,
+                        Sort.by(dir, "createdAt").and(Sort.by(dir, "id")))
                 .stream()
-                .map(DtoMapper::toTaskResponse)
+                .map(task -> DtoMapper.toTaskResponse(task, principal.username()))
                 .toList();
     }
 
+    /* ---------- ETags: the owner's task version, read without touching the tasks table ---------- */
+
+    /**
+     * Strong ETag of the list {@link #getTasksForCurrentUser} would return. The filters are part of it,
+     * so differently filtered lists never share a tag.
+     */
+    @Transactional(readOnly = true)
+    public String getTasksEtag(Boolean active, LocalDateTime createdFrom, LocalDateTime createdTo, String direction) {
+        Sort.Direction dir = validateListQuery(createdFrom, createdTo, direction);
+        long version = taskVersionService.getTaskVersion(userService.getCurrentPrincipal().id());
+        return "\"" + version + ":" + active + ":" + createdFrom + ":" + createdTo + ":" + dir + "\"";
+    }
+
+    /**
+     * Strong ETag of one task, its row version, or {@code null} when the caller cannot see it
+     * (the body then answers 403 / 404). The same tag is what PATCH expects in If-Match.
+     */
+    @Transactional(readOnly = true)
+    public String getTaskEtag(UUID id) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        Optional<Long> version = principal.isAdmin()
+                ? taskRepository.findVersionById(id)
+                : taskRepository.findVersionByIdAndOwnerId(id, principal.id());
+        return version.map(TaskService::taskEtag).orElse(null);
+    }
+
+    public static String taskEtag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static Sort.Direction validateListQuery(LocalDateTime createdFrom, LocalDateTime createdTo, String direction) {
+        Sort.Direction dir = Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new InvalidQueryParameterException("direction", "Direction must be 'asc' or 'desc'"));
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new InvalidQueryParameterException("createdFrom", "createdFrom must be before createdTo");
+        }
+        return dir;
+    }
+
+    /**
+     * Keyset page of the current user's tasks, newest first. The query seeks straight to
+     * the cursor position on (created_at, id), so deep pages cost the same as the first one.
+     */
+    @Transactional(readOnly = true)
+    public TaskPageResponse getTaskPage(int limit, String cursor, Boolean active) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra row tells us whether there is a next page without a COUNT
+        Pageable window = PageRequest.of(0, pageSize + 1);
+
+        List<Task> tasks;
+        if (cursor == null || cursor.isBlank()) {
+            tasks = taskRepository.findFirstPage(principal.id(), active, window);
+        } else {
+            TaskCursor after = TaskCursor.decode(cursor);
+            tasks = taskRepository.findPageAfter(principal.id(), active, after.createdAt(), after.id(), window);
+        }
+
+        boolean hasMore = tasks.size() > pageSize;
+        List<Task> page = hasMore ? tasks.subList(0, pageSize) : tasks;
+        String nextCursor = hasMore ? TaskCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new TaskPageResponse(
+                page.stream().map(task -> DtoMapper.toTaskResponse(task, principal.username())).toList(),
+                pageSize,
+                nextCursor);
+    }
+
+    /**
+     * Writes every task of the owner as newline-delimited JSON. Rows come from a server-side
+     * cursor and each entity is detached once written, so memory stays flat for any list size.
+     */
+    @Transactional(readOnly = true)
+    public void exportTasks(AuthenticatedUser owner, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(TaskResponse.class);
+        int written = 0;
+
+        try (Stream<Task> tasks = taskRepository.streamAllByOwnerId(owner.id())) {
+            Iterator<Task> it = tasks.iterator();
+            while (it.hasNext()) {
+                Task task = it.next();
+                out.write(writer.writeValueAsBytes(DtoMapper.toTaskResponse(task, owner.username())));
+                out.write('\n');
+                entityManager.detach(task);
+
+                // flush the first row right away so the client starts receiving immediately
+                if (++written == 1 || written % EXPORT_FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
     @Transactional(readOnly = true)
     public TaskResponse getTaskById(UUID id) {
-        Task task = getTaskWithAccessCheck(id);
-        return DtoMapper.toTaskResponse(task);
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        Task task = getTaskWithAccessCheck(id, principal);
+        return toResponse(task, principal);
     }
 
     @Transactional
     public TaskResponse updateTask(UUID id, TaskRequest request) {
-        Task task = getTaskWithAccessCheck(id);
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        Task task = getTaskWithAccessCheck(id, principal);
+        long changeSeq = taskVersionService.bumpTaskVersion(task.getOwner().getId());
 
         task.setTitle(request.title());
         task.setDescription(request.description());
         task.setActive(request.isActive());
+        stamp(task, changeSeq);
+
+        // flushed before mapping, so the response and the event carry the version the write produced
+        Task updatedTask = taskRepository.saveAndFlush(task);
+        TaskResponse response = toResponse(updatedTask, principal);
+        publish(updatedTask.getOwner().getId(), TaskChangeType.UPDATED, updatedTask.getId(), response);
+        return response;
+    }
+
+    /**
+     * Partial update guarded by the version the client last saw (If-Match). A single conditional
+     * UPDATE writes the given fields only while the row is still at {@code expectedVersion}; the
+     * task is read afterwards for the response, never before.
+     */
+    @Transactional
+    public TaskResponse patchTask(UUID id, TaskPatchRequest request, long expectedVersion) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        UUID ownerId = ownerIdFor(id, principal);
+
+        // a miss throws and rolls the bump back
+        long changeSeq = taskVersionService.bumpTaskVersion(ownerId);
+        int updated = taskRepository.patchIfVersion(id, ownerId, expectedVersion,
+                request.title(), request.description(), request.isActive(), changeSeq, LocalDateTime.now());
+        if (updated == 0) {
+            throw conflictOrMissing(id, principal);
+        }
 
-        Task updatedTask = taskRepository.save(task);
-        return DtoMapper.toTaskResponse(updatedTask);
+        TaskResponse response = toResponse(getTaskWithAccessCheck(id, principal), principal);
+        publish(ownerId, TaskChangeType.UPDATED, id, response);
+        return response;
     }
 
     @Transactional
     public void deleteTask(UUID id) {
-        Task task = getTaskWithAccessCheck(id);
-        taskRepository.delete(task);
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        if (principal.isAdmin()) {
+            Task task = getTaskWithAccessCheck(id, principal);
+            long changeSeq = taskVersionService.bumpTaskVersion(task.getOwner().getId());
+            taskRepository.delete(task);
+            leaveTombstone(id, task.getOwner().getId(), changeSeq);
+            publish(task.getOwner().getId(), TaskChangeType.DELETED, id, null);
+            return;
+        }
+        // a miss throws and rolls the bump back
+        long changeSeq = taskVersionService.bumpTaskVersion(principal.id());
+        if (taskRepository.deleteByIdAndOwnerId(id, principal.id()) == 0) {
+            throw missingOrForbidden(id);
+        }
+        leaveTombstone(id, principal.id(), changeSeq);
+        publish(principal.id(), TaskChangeType.DELETED, id, null);
     }
 
+    /**
+     * Applies a mixed list of creates, updates and deletes in one transaction. The current
+     * user is resolved once and all referenced tasks are fetched with a single IN query;
+     * the writes are flushed together as JDBC batches, and only then are the results and
+     * events built, so they carry the versions the writes produced. Each operation reports
+     * its own outcome, so a missing or foreign task does not hide the result of the others.
+     */
     @Transactional
-    public TaskResponse toggleTaskCompletion(UUID id) {
-        Task task = getTaskWithAccessCheck(id);
+    public List<TaskBatchResult> applyBatch(List<TaskBatchOperation> operations) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
 
-        boolean wasActive = task.isActive();
+        Set<UUID> ids = operations.stream()
+                .filter(op -> op.type() != TaskBatchOperationType.CREATE)
+                .map(TaskBatchOperation::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<UUID, Task> tasksById = taskRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity(), (a, b) -> a, HashMap::new));
 
-        task.setActive(!wasActive);
+        Map<UUID, Long> changeSeqs = bumpVersionsFor(operations, principal, tasksById);
 
+        List<Supplier<TaskBatchResult>> outcomes = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            outcomes.add(applyOperation(i, operations.get(i), principal, tasksById, changeSeqs));
+        }
+        taskRepository.flush();
+        return outcomes.stream().map(Supplier::get).toList();
+    }
 
-        if (wasActive && !task.isActive() && !task.isCountedAsDone()) {
-            User owner = task.getOwner();
-            owner.setTasksDone(owner.getTasksDone() + 1);
-            task.setCountedAsDone(true);
-             userService.saveUser(owner);
+    // every owner the batch may write to, in a fixed order so concurrent batches lock users rows alike;
+    // all of one owner's writes in the batch share the returned change_seq
+    private Map<UUID, Long> bumpVersionsFor(List<TaskBatchOperation> operations, AuthenticatedUser principal, Map<UUID, Task> tasksById) {
+        Map<UUID, Long> owners = new TreeMap<>();
+        if (operations.stream().anyMatch(op -> op.type() == TaskBatchOperationType.CREATE)) {
+            owners.put(principal.id(), null);
         }
+        tasksById.values().stream()
+                .filter(task -> canAccess(principal, task))
+                .forEach(task -> owners.put(task.getOwner().getId(), null));
+        owners.replaceAll((ownerId, ignored) -> taskVersionService.bumpTaskVersion(ownerId));
+        return owners;
+    }
 
-        Task savedTask = taskRepository.save(task);
-        return DtoMapper.toTaskResponse(savedTask);
+    // applies the write now; the returned step reports it (and publishes its event) after the batch is flushed
+    private Supplier<TaskBatchResult> applyOperation(int index, TaskBatchOperation op, AuthenticatedUser principal,
+                                                     Map<UUID, Task> tasksById, Map<UUID, Long> changeSeqs) {
+        TaskBatchOperationType type = op.type();
+
+        if (type == TaskBatchOperationType.CREATE) {
+            if (op.task() == null) {
+                return failed(index, type, HttpStatus.BAD_REQUEST, null, "Task body is required");
+            }
+            Task task = DtoMapper.toTaskEntity(op.task(), userService.getUserReference(principal.id()));
+            task.setActive(true);
+            stamp(task, changeSeqs.get(principal.id()));
+            Task savedTask = taskRepository.save(task);
+            return () -> written(index, type, HttpStatus.CREATED, TaskChangeType.CREATED, savedTask, principal);
+        }
+
+        if (op.id() == null) {
+            return failed(index, type, HttpStatus.BAD_REQUEST, null, "Task id is required");
+        }
+        Task task = tasksById.get(op.id());
+        if (task == null) {
+            return failed(index, type, HttpStatus.NOT_FOUND, op.id(),
+                    "Task with id: " + op.id() + " does not exist!");
+        }
+        if (!canAccess(principal, task)) {
+            return failed(index, type, HttpStatus.FORBIDDEN, op.id(),
+                    "You are not allowed to access this task");
+        }
+
+        if (type == TaskBatchOperationType.UPDATE) {
+            if (op.task() == null) {
+                return failed(index, type, HttpStatus.BAD_REQUEST, op.id(), "Task body is required");
+            }
+            task.setTitle(op.task().title());
+            task.setDescription(op.task().description());
+            task.setActive(op.task().isActive());
+            stamp(task, changeSeqs.get(task.getOwner().getId()));
+            return () -> written(index, type, HttpStatus.OK, TaskChangeType.UPDATED, task, principal);
+        }
+
+        UUID ownerId = task.getOwner().getId();
+        taskRepository.delete(task);
+        tasksById.remove(op.id());
+        leaveTombstone(op.id(), ownerId, changeSeqs.get(ownerId));
+        return () -> {
+            publish(ownerId, TaskChangeType.DELETED, op.id(), null);
+            return TaskBatchResult.ok(index, type, HttpStatus.NO_CONTENT, op.id(), null);
+        };
     }
 
+    private TaskBatchResult written(int index, TaskBatchOperationType type, HttpStatus status,
+                                    TaskChangeType change, Task task, AuthenticatedUser principal) {
+        TaskResponse response = toResponse(task, principal);
+        publish(task.getOwner().getId(), change, task.getId(), response);
+        return TaskBatchResult.ok(index, type, status, task.getId(), response);
+    }
 
-    private Task getTaskWithAccessCheck(UUID id) {
-        User currentUser = userService.getCurrentUser();
-        Task task = taskRepository.findById(id)
+    private static Supplier<TaskBatchResult> failed(int index, TaskBatchOperationType type, HttpStatus status,
+                                                    UUID id, String error) {
+        TaskBatchResult result = TaskBatchResult.failed(index, type, status, id, error);
+        return () -> result;
+    }
+
+    /**
+     * Flips the state in the database instead of writing back a value read earlier, so concurrent
+     * toggles never conflict on the row version. The task is read afterwards for the response.
+     */
+    @Transactional
+    public TaskResponse toggleTaskCompletion(UUID id) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        UUID ownerId = ownerIdFor(id, principal);
+
+        // a miss throws and rolls the bump back
+        long changeSeq = taskVersionService.bumpTaskVersion(ownerId);
+        if (taskRepository.toggleActive(id, ownerId, changeSeq, LocalDateTime.now()) == 0) {
+            throw missingOrForbidden(id);
+        }
+
+        // conditional UPDATE + atomic increment: concurrent toggles count a task exactly once
+        if (taskRepository.markCountedAsDone(id) == 1) {
+            userService.incrementTasksDone(ownerId);
+        }
+
+        TaskResponse response = toResponse(getTaskWithAccessCheck(id, principal), principal);
+        publish(ownerId, TaskChangeType.UPDATED, id, response);
+        return response;
+    }
+
+
+    /**
+     * Ownership is part of the WHERE clause, so a regular user's lookup is one indexed query.
+     * Admins take a separate path that may load any task.
+     */
+    private Task getTaskWithAccessCheck(UUID id, AuthenticatedUser principal) {
+        Optional<Task> task = principal.isAdmin()
+                ? taskRepository.findById(id)
+                : taskRepository.findByIdAndOwnerId(id, principal.id());
+
+        return task.orElseThrow(() -> missingOrForbidden(id));
+    }
+
+    // a regular user can only write their own tasks; an admin writes as the task's owner
+    private UUID ownerIdFor(UUID id, AuthenticatedUser principal) {
+        if (!principal.isAdmin()) {
+            return principal.id();
+        }
+        return taskRepository.findOwnerIdById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Task with id: " + id + " does not exist!"));
+    }
+
+    // only runs on the failure path: tells a foreign task (403) from a missing one (404)
+    private RuntimeException missingOrForbidden(UUID id) {
+        if (taskRepository.existsById(id)) {
+            return new AccessDeniedException("You are not allowed to access this task");
+        }
+        return new EntityNotFoundException("Task with id: " + id + " does not exist!");
+    }
 
-        if (currentUser.getId().equals(task.getOwner().getId()) ||
-                currentUser.getRole().name().equals("ADMIN")) {
-            return task;
+    // only runs on the failure path of a conditional write
+    private RuntimeException conflictOrMissing(UUID id, AuthenticatedUser principal) {
+        Optional<Long> current = principal.isAdmin()
+                ? taskRepository.findVersionById(id)
+                : taskRepository.findVersionByIdAndOwnerId(id, principal.id());
+        if (current.isPresent()) {
+            return new PreconditionFailedException("Task " + id + " has changed, its current ETag is " + taskEtag(current.get()));
         }
+        return missingOrForbidden(id);
+    }
+
+    // owner.getId() is answered by the lazy proxy, so this never loads the owner row
+    private boolean canAccess(AuthenticatedUser principal, Task task) {
+        return principal.id().equals(task.getOwner().getId()) || principal.isAdmin();
+    }
+
+    private static void stamp(Task task, long changeSeq) {
+        task.setChangeSeq(changeSeq);
+        task.setUpdatedAt(LocalDateTime.now());
+    }
 
-        throw new AccessDeniedException("You are not allowed to access this task");
+    private void leaveTombstone(UUID taskId, UUID ownerId, long changeSeq) {
+        tombstoneRepository.save(TaskTombstone.builder()
+                .taskId(taskId)
+                .ownerId(ownerId)
+                .changeSeq(changeSeq)
+                .deletedAt(Instant.now())
+                .build());
+    }
+
+    // delivered to /api/tasks/stream subscribers only if the surrounding transaction commits
+    private void publish(UUID ownerId, TaskChangeType type, UUID taskId, TaskResponse task) {
+        eventPublisher.publishEvent(new TaskChangedEvent(ownerId, new TaskChangeResponse(type, taskId, task)));
+    }
+
+    private TaskResponse toResponse(Task task, AuthenticatedUser principal) {
+        if (principal.id().equals(task.getOwner().getId())) {
+            return DtoMapper.toTaskResponse(task, principal.username());
+        }
+        return DtoMapper.toTaskResponse(task);    // admin on someone else's task
     }
 
 
@@ -0,0 +1,79 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.TaskTombstoneRepository;
+import demo.todolist.security.AuthenticatedUser;
+import demo.todolist.utils.DtoMapper;
+import demo.todolist.utils.SyncToken;
+import demo.todolist.web.dto.TaskChangesResponse;
+import demo.todolist.web.dto.TaskResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delta sync for offline clients. The position is the owner's task version, which every write bumps
+ * and stamps on its rows as change_seq (see {@link TaskService}); a delta is the owner's tasks and
+ * tombstones above it, read from the (owner_id, change_seq) indexes, so its cost follows the number
+ * of changes rather than the size of the list.
+ */
+@Service
+public class TaskSyncService {
+
+    private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
+    private final UserService userService;
+    private final TaskVersionService taskVersionService;
+    private final Duration tombstoneRetention;
+
+    public TaskSyncService(TaskRepository taskRepository,
+                           TaskTombstoneRepository tombstoneRepository,
+                           UserService userService,
+                           TaskVersionService taskVersionService,
+                           @Value("${tasks.sync.tombstone-retention:P30D}") Duration tombstoneRetention) {
+        this.taskRepository = taskRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.userService = userService;
+        this.taskVersionService = taskVersionService;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Changes of the current user's tasks after {@code since}. Without a token, with one older than
+     * the tombstone retention, or with one ahead of the current version (restored database), the
+     * answer is the full list with {@code reset} set.
+     */
+    @Transactional(readOnly = true)
+    public TaskChangesResponse getChangesSince(String since) {
+        AuthenticatedUser principal = userService.getCurrentPrincipal();
+        SyncToken from = since == null || since.isBlank() ? null : SyncToken.decode(since);
+
+        // read before the rows: a write committing in between is returned again by the next call,
+        // which is harmless as clients apply changes as upserts and deletes as idempotent removals
+        Instant now = Instant.now();
+        long version = taskVersionService.getTaskVersion(principal.id());
+        String next = new SyncToken(version, now).encode();
+
+        if (from == null || from.version() > version || from.issuedAt().isBefore(now.minus(tombstoneRetention))) {
+            List<TaskResponse> all = taskRepository.findFiltered(principal.id(), null, null, null,
+                            Sort.by("createdAt", "id"))
+                    .stream()
+                    .map(task -> DtoMapper.toTaskResponse(task, principal.username()))
+                    .toList();
+            return new TaskChangesResponse(all, List.of(), true, next);
+        }
+
+        List<TaskResponse> changed = taskRepository.findChangedSince(principal.id(), from.version())
+                .stream()
+                .map(task -> DtoMapper.toTaskResponse(task, principal.username()))
+                .toList();
+        List<UUID> deleted = tombstoneRepository.findDeletedTaskIdsSince(principal.id(), from.version());
+        return new TaskChangesResponse(changed, deleted, false, next);
+    }
+}
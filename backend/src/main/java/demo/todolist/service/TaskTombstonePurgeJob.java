@@ -0,0 +1,45 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.TaskTombstoneRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Deletes task tombstones older than {@code tasks.sync.tombstone-retention} in bounded chunks.
+ * Sync tokens older than the retention get a full list instead of a delta, so nothing is lost.
+ */
+@Slf4j
+@Component
+public class TaskTombstonePurgeJob {
+
+    private final TaskTombstoneRepository repo;
+    private final Duration retention;
+    private final ChunkedDelete chunks;
+    private final Counter purged;
+
+    public TaskTombstonePurgeJob(TaskTombstoneRepository repo,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${tasks.sync.tombstone-retention:P30D}") Duration retention,
+                                 @Value("${tasks.sync.purge.chunk-size:1000}") int chunkSize) {
+        this.repo = repo;
+        this.retention = retention;
+        this.chunks = new ChunkedDelete("tasks.sync.purge.chunk-size", chunkSize);
+        this.purged = Counter.builder("tasks.tombstones.purged").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${tasks.sync.purge.initial-delay:PT10M}",
+               fixedDelayString = "${tasks.sync.purge.interval:PT6H}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        long total = chunks.run(limit -> repo.deleteOlderThanChunk(cutoff, limit));
+        purged.increment(total);
+        log.info("Purged {} task tombstones older than {}", total, cutoff);
+    }
+}
@@ -0,0 +1,33 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.TaskVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Per-owner task version in {@code task_versions}: the source of the ETags on /api/tasks, the
+ * change_seq of written rows and the position of delta sync tokens.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskVersionService {
+
+    private final TaskVersionRepository taskVersionRepository;
+
+    /** 0 for an owner that has never written a task. */
+    public long getTaskVersion(UUID ownerId) {
+        return taskVersionRepository.findVersion(ownerId).orElse(0L);
+    }
+
+    /**
+     * Increments the owner's task version and returns the new value, which the caller stamps on the rows
+     * it writes (tasks.change_seq). The task_versions row stays locked until commit, so one owner's
+     * sequence numbers become visible in order.
+     */
+    public long bumpTaskVersion(UUID ownerId) {
+        taskVersionRepository.increment(ownerId);
+        return getTaskVersion(ownerId);
+    }
+}
@@ -0,0 +1,118 @@
+package demo.todolist.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import demo.todolist.entity.User;
+import demo.todolist.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded, TTL-based in-process cache for user lookups.
+ * <p>
+ * Users are cached by id; usernames only map to ids, so a write that knows just the id
+ * invalidates every way of reaching the entry. Entries are {@link CachedUser} snapshots, safe to
+ * share between threads; write paths load the entity from {@link UserRepository} and call
+ * {@link #evict} afterwards.
+ * Hit/miss/eviction counters are published as {@code cache.*} metrics.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, CachedUser> usersById;
+    private final Cache<String, UUID> idsByUsername;
+
+    public UserCache(UserRepository userRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${users.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${users.cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByUsername, "users.byUsername");
+    }
+
+    public Optional<CachedUser> findByUsername(String username) {
+        UUID id = idsByUsername.getIfPresent(username);
+        if (id != null) {
+            CachedUser cached = usersById.getIfPresent(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        return userRepository.findUserByUsername(username).map(this::put);
+    }
+
+    public Optional<CachedUser> findById(UUID id) {
+        CachedUser cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return userRepository.findUserById(id).map(this::put);
+    }
+
+    public CachedUser put(User user) {
+        CachedUser cached = CachedUser.of(user);
+        usersById.put(cached.id(), cached);
+        idsByUsername.put(cached.username(), cached.id());
+        return cached;
+    }
+
+    public void evict(User user) {
+        evictNowAndAfterCommit(() -> {
+            usersById.invalidate(user.getId());
+            idsByUsername.invalidate(user.getUsername());
+        });
+    }
+
+    public void evictByUsername(String username) {
+        evictNowAndAfterCommit(() -> {
+            UUID id = idsByUsername.getIfPresent(username);
+            if (id != null) {
+                usersById.invalidate(id);
+            }
+            idsByUsername.invalidate(username);
+        });
+    }
+
+    public void evictById(UUID id) {
+        evictNowAndAfterCommit(() -> usersById.invalidate(id));
+    }
+
+    public void invalidateAll() {
+        usersById.invalidateAll();
+        idsByUsername.invalidateAll();
+    }
+
+    // a reader may re-cache the old row before our transaction commits, so evict once more after it
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
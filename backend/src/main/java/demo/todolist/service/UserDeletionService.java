@@ -0,0 +1,183 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.RefreshTokenRepository;
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.TaskVersionRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.web.dto.UserDeletionStatusResponse;
+import demo.todolist.web.dto.UserDeletionStatusResponse.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes a user with set-based statements instead of cascading through the entity graph.
+ * <p>
+ * Tasks go first in {@code DELETE ... LIMIT n} chunks, each its own short transaction, then the
+ * refresh tokens and the users row. Accounts with more than {@code inline-max-tasks} tasks are
+ * purged on the task executor; their progress is kept in memory (per instance, lost on restart —
+ * repeating the DELETE simply resumes, since every step only removes what is still there).
+ */
+@Slf4j
+@Service
+public class UserDeletionService {
+
+    private final TaskRepository taskRepository;
+    private final TaskVersionRepository taskVersionRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final AvailabilityService availabilityService;
+    private final Executor executor;
+    private final ChunkedDelete chunks;
+    private final long inlineMaxTasks;
+    private final Duration statusRetention;
+
+    private final Map<UUID, Progress> deletions = new ConcurrentHashMap<>();
+
+    private final Counter tasksDeletedCounter;
+    private final Timer inlineTimer;
+    private final Timer backgroundTimer;
+
+    public UserDeletionService(TaskRepository taskRepository,
+                               TaskVersionRepository taskVersionRepository,
+                               RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               UserCache userCache,
+                               AvailabilityService availabilityService,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                               MeterRegistry meterRegistry,
+                               @Value("${users.deletion.chunk-size:1000}") int chunkSize,
+                               @Value("${users.deletion.inline-max-tasks:5000}") long inlineMaxTasks,
+                               @Value("${users.deletion.status-retention:PT1H}") Duration statusRetention) {
+        this.taskRepository = taskRepository;
+        this.taskVersionRepository = taskVersionRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.availabilityService = availabilityService;
+        this.executor = executor;
+        this.chunks = new ChunkedDelete("users.deletion.chunk-size", chunkSize);
+        this.inlineMaxTasks = inlineMaxTasks;
+        this.statusRetention = statusRetention;
+
+        this.tasksDeletedCounter = Counter.builder("users.deletion.tasks")
+                .description("Tasks removed while deleting users")
+                .register(meterRegistry);
+        this.inlineTimer = Timer.builder("users.deletion").tag("mode", "inline").register(meterRegistry);
+        this.backgroundTimer = Timer.builder("users.deletion").tag("mode", "background").register(meterRegistry);
+    }
+
+    /**
+     * Deletes the user's tasks, refresh tokens and row. Small accounts are finished before this returns
+     * ({@link State#DONE}); large ones come back {@link State#RUNNING}. A deletion that is already
+     * running is returned as is instead of being started twice.
+     */
+    public UserDeletionStatusResponse delete(UUID userId) {
+        Progress fresh = new Progress(userId, taskRepository.countByOwnerId(userId), Instant.now());
+
+        Progress current = deletions.compute(userId,
+                (id, existing) -> existing != null && existing.state == State.RUNNING ? existing : fresh);
+        if (current != fresh) {
+            return current.snapshot();
+        }
+
+        if (fresh.background()) {
+            log.info("Deleting user {} with {} tasks in the background", userId, fresh.tasksTotal);
+            executor.execute(() -> backgroundTimer.record(() -> run(fresh)));
+        } else {
+            inlineTimer.record(() -> run(fresh));
+        }
+        return fresh.snapshot();
+    }
+
+    public UserDeletionStatusResponse status(UUID userId) {
+        Progress progress = deletions.get(userId);
+        if (progress == null) {
+            throw new EntityNotFoundException("No deletion recorded for user " + userId);
+        }
+        return progress.snapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${users.deletion.status-retention:PT1H}")
+    public void forgetFinished() {
+        Instant cutoff = Instant.now().minus(statusRetention);
+        deletions.values().removeIf(p -> p.finishedAt != null && p.finishedAt.isBefore(cutoff));
+    }
+
+    /* ---------- the actual purge ---------- */
+
+    private void run(Progress progress) {
+        UUID userId = progress.userId;
+        try {
+            chunks.run(limit -> {
+                int deleted = taskRepository.deleteChunkByOwnerId(userId, limit);
+                progress.tasksDeleted.addAndGet(deleted);
+                tasksDeletedCounter.increment(deleted);
+                return deleted;
+            });
+
+            refreshTokenRepository.deleteAllByOwnerId(userId);
+            taskVersionRepository.deleteByOwnerId(userId);
+            // ON DELETE CASCADE covers tasks created between the last chunk and this statement
+            if (userRepository.deleteRowById(userId) > 0) {
+                availabilityService.recordDeleted();
+            }
+            userCache.evictById(userId);
+            progress.finish(State.DONE, null);
+        } catch (RuntimeException ex) {
+            log.error("Deleting user {} failed after {} tasks", userId, progress.tasksDeleted.get(), ex);
+            progress.finish(State.FAILED, ex.getMessage());
+            if (!progress.background()) {
+                throw ex;
+            }
+        }
+    }
+
+    private final class Progress {
+
+        final UUID userId;
+        final long tasksTotal;
+        final Instant startedAt;
+        final AtomicLong tasksDeleted = new AtomicLong();
+        volatile State state = State.RUNNING;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Progress(UUID userId, long tasksTotal, Instant startedAt) {
+            this.userId = userId;
+            this.tasksTotal = tasksTotal;
+            this.startedAt = startedAt;
+        }
+
+        boolean background() {
+            return tasksTotal > inlineMaxTasks;
+        }
+
+        void finish(State state, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+        }
+
+        UserDeletionStatusResponse snapshot() {
+            return new UserDeletionStatusResponse(userId, state, tasksTotal, tasksDeleted.get(),
+                    startedAt, finishedAt, error);
+        }
+    }
+}
@@ -3,61 +3,123 @@ package demo.todolist.service;
 import demo.todolist.entity.User;
 import demo.todolist.entity.UserRole;
 import demo.todolist.exception.DuplicateFieldException;
+import demo.todolist.exception.InvalidQueryParameterException;
 import demo.todolist.repository.UserRepository;
+import demo.todolist.security.AuthenticatedUser;
 import demo.todolist.utils.DtoMapper;
+import demo.todolist.web.dto.AdminUserPageResponse;
 import demo.todolist.web.dto.AdminUserResponse;
 import demo.todolist.web.dto.RegisterRequest;
 import demo.todolist.web.dto.RegisterResponse;
+import demo.todolist.web.dto.UserDeletionStatusResponse;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    static final int MAX_ADMIN_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RefreshTokenService refreshTokenService;
+    private final UserCache userCache;
+    private final AvailabilityService availabilityService;
+    private final UserDeletionService userDeletionService;
 
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RefreshTokenService refreshTokenService) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       RefreshTokenService refreshTokenService, UserCache userCache,
+                       AvailabilityService availabilityService, UserDeletionService userDeletionService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.refreshTokenService = refreshTokenService;
+        this.userCache = userCache;
+        this.availabilityService = availabilityService;
+        this.userDeletionService = userDeletionService;
     }
 
-    public User getCurrentUser() {
+    public CachedUser getCurrentUser() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findUserByUsername(username)
+        return userCache.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    /**
+     * The caller as carried in the access token. Only tokens without the uid claim
+     * (or test/mock authentications) cost a users lookup.
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        CachedUser user = getCurrentUser();
+        return new AuthenticatedUser(user.id(), user.username(), user.role());
+    }
+
+    /**
+     * Lazy reference for use as a foreign key; never hits the database by itself.
+     */
+    public User getUserReference(UUID id) {
+        return userRepository.getReferenceById(id);
+    }
+
+    /**
+     * Taken usernames / emails are rejected before the password is hashed, mostly straight from the
+     * availability filters. Uniqueness itself is still enforced by uk_users_username / uk_users_email,
+     * so concurrent sign-ups can't both pass, and a violation is reported as the field it hit.
+     */
     public RegisterResponse registerUser(RegisterRequest registerRequest){
 
-        if (userRepository.findUserByEmail(registerRequest.getEmail()).isPresent()){
+        if (!availabilityService.isEmailAvailable(registerRequest.getEmail())) {
             throw new DuplicateFieldException("email", "This email is already in use!");
         }
-
-        if (userRepository.findUserByUsername(registerRequest.getUsername()).isPresent()){
+        if (!availabilityService.isUsernameAvailable(registerRequest.getUsername())) {
             throw new DuplicateFieldException("username", "This username is already in use!");
         }
+
         User user = DtoMapper.toUserEntity(registerRequest);
 
         user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
 
-        if (userRepository.count() == 0){
+        if (!userRepository.existsByIdIsNotNull()){
             user.setRole(UserRole.ADMIN);
         }
-        User savedUser = userRepository.save(user);
+
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            throw toDuplicateField(ex);
+        }
+        userCache.put(savedUser);
+        availabilityService.recordRegistered(savedUser.getUsername(), savedUser.getEmail());
         return DtoMapper.toUserResponse(savedUser);
     }
 
+    private static RuntimeException toDuplicateField(DataIntegrityViolationException ex) {
+        String detail = String.valueOf(ex.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        if (detail.contains(User.UK_EMAIL)) {
+            return new DuplicateFieldException("email", "This email is already in use!");
+        }
+        if (detail.contains(User.UK_USERNAME)) {
+            return new DuplicateFieldException("username", "This username is already in use!");
+        }
+        return ex;
+    }
+
     public RegisterResponse promoteUserToAdmin(UUID id){
        User user =  userRepository.findUserById(id)
                .orElseThrow(() -> new EntityNotFoundException("User with id:" + id + "does not exist"));
@@ -67,11 +129,16 @@ public class UserService {
        }
        user.setRole(UserRole.ADMIN);
        userRepository.save(user);
+       userCache.evict(user);
        return DtoMapper.toUserResponse(user);
     }
 
-    @Transactional
-    public void deleteUser(UUID id) {
+    /**
+     * Bulk deletion through {@link UserDeletionService}; the entity is loaded only for the admin check,
+     * its tasks and tokens never are. Tokens are revoked up front so the account stops refreshing
+     * even while a large purge is still running.
+     */
+    public UserDeletionStatusResponse deleteUser(UUID id) {
         User user = userRepository.findUserById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User " + id + " not found"));
 
@@ -79,30 +146,53 @@ public class UserService {
             throw new IllegalArgumentException("You cannot delete an admin!");
         }
         refreshTokenService.revokeAllForUser(id);
-        userRepository.delete(user);
+        userCache.evict(user);
+        return userDeletionService.delete(id);
+    }
+
+    public UserDeletionStatusResponse getDeletionStatus(UUID id) {
+        return userDeletionService.status(id);
     }
 
 
-    public User findUser(String username) {
-        return userRepository.findUserByUsername(username)
+    public CachedUser findUser(String username) {
+        return userCache.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("User with username: " + username + "does not exist!"));
     }
 
-    public List<AdminUserResponse> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(u -> new AdminUserResponse(
-                        u.getId(),
-                        u.getUsername(),
-                        u.getEmail(),
-                        u.getRole().name(),
-                        u.getTasksDone()
-                ))
-                .collect(Collectors.toList());
+    public AdminUserPageResponse getUsersPage(int page, int size, String sort, String direction, String usernamePrefix) {
+        String sortProperty = switch (sort) {
+            case "username" -> "username";
+            case "tasksDone" -> "tasksDone";
+            default -> throw new InvalidQueryParameterException("sort", "Sort must be 'username' or 'tasksDone'");
+        };
+        Sort.Direction dir = Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new InvalidQueryParameterException("direction", "Direction must be 'asc' or 'desc'"));
+
+        // id as tie-breaker keeps pages stable when many users share the same tasksDone
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_ADMIN_PAGE_SIZE)),
+                Sort.by(dir, sortProperty).and(Sort.by(Sort.Direction.ASC, "id")));
+
+        Page<AdminUserResponse> result = userRepository.findAdminPage(toLikePrefix(usernamePrefix), pageable);
+        return new AdminUserPageResponse(result.getContent(), result.getNumber(), result.getSize(),
+                result.getTotalElements(), result.getTotalPages());
+    }
+
+    private static String toLikePrefix(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
     }
 
     public void saveUser(User user){
         userRepository.save(user);
+        userCache.evict(user);
+    }
+
+    public void incrementTasksDone(UUID id) {
+        userRepository.incrementTasksDone(id);
+        userCache.evictById(id);
     }
 }
 
@@ -48,13 +48,18 @@ public class DtoMapper {
     }
 
     public TaskResponse toTaskResponse(Task task) {
+        return toTaskResponse(task, task.getOwner().getUsername());
+    }
+
+    public TaskResponse toTaskResponse(Task task, String ownerUsername) {
         return new TaskResponse(
                 task.getId(),
                 task.getTitle(),
                 task.getDescription(),
                 task.isActive(),
                 task.getCreatedAt(),
-                task.getOwner().getUsername()
+                ownerUsername,
+                task.getVersion()
         );
     }
 
@@ -0,0 +1,25 @@
+package demo.todolist.utils;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Hashing {
+
+    /**
+     * 64-bit FNV-1a over the chars, finished with the murmur3 fmix64 avalanche.
+     * Fast, allocation-free and well spread in every bit; not cryptographic.
+     */
+    public long hash64(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,39 @@
+package demo.todolist.utils;
+
+import demo.todolist.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque delta sync position: the owner's task version a sync saw, and when it was issued.
+ * The issue time tells whether the tombstones the next sync needs may already be purged.
+ * Clients get it as a url-safe token and must not rely on its layout.
+ */
+public record SyncToken(long version, Instant issuedAt) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = version + SEPARATOR + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(SEPARATOR);
+            if (sep < 0) {
+                throw new InvalidCursorException("since", "Malformed sync token");
+            }
+            return new SyncToken(
+                    Long.parseLong(raw.substring(0, sep)),
+                    Instant.parse(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("since", "Malformed sync token");
+        }
+    }
+}
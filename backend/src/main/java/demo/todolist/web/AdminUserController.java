@@ -1,14 +1,16 @@
 package demo.todolist.web;
 
 import demo.todolist.service.UserService;
-import demo.todolist.web.dto.AdminUserResponse;
+import demo.todolist.web.dto.AdminUserPageResponse;
 import demo.todolist.web.dto.RegisterResponse;
+import demo.todolist.web.dto.UserDeletionStatusResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.List;
+import java.net.URI;
 import java.util.UUID;
 
 @RestController
@@ -24,15 +26,32 @@ public class AdminUserController {
         return userService.promoteUserToAdmin(id);
     }
 
+    /**
+     * 204 when the user is gone already, 202 with the progress (and its URL) when the purge
+     * continues in the background.
+     */
     @DeleteMapping("{id}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void delete(@PathVariable UUID id) {
-        userService.deleteUser(id);
+    public ResponseEntity<UserDeletionStatusResponse> delete(@PathVariable UUID id) {
+        UserDeletionStatusResponse status = userService.deleteUser(id);
+        if (status.state() == UserDeletionStatusResponse.State.DONE) {
+            return ResponseEntity.noContent().build();
+        }
+        URI progress = ServletUriComponentsBuilder.fromCurrentRequest().path("/deletion").build().toUri();
+        return ResponseEntity.accepted().location(progress).body(status);
+    }
+
+    @GetMapping("{id}/deletion")
+    public UserDeletionStatusResponse deletionStatus(@PathVariable UUID id) {
+        return userService.getDeletionStatus(id);
     }
 
     @GetMapping
-    public List<AdminUserResponse> getAllUsers() {
-        return userService.getAllUsers();
+    public AdminUserPageResponse getAllUsers(@RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(defaultValue = "20") int size,
+                                             @RequestParam(defaultValue = "username") String sort,
+                                             @RequestParam(defaultValue = "asc") String direction,
+                                             @RequestParam(required = false) String username) {
+        return userService.getUsersPage(page, size, sort, direction, username);
     }
 
 }
@@ -1,6 +1,7 @@
 package demo.todolist.web;
 
 import demo.todolist.service.AuthService;
+import demo.todolist.service.AvailabilityService;
 import demo.todolist.service.UserService;
 import demo.todolist.web.dto.*;
 import jakarta.validation.Valid;
@@ -20,6 +21,7 @@ public class AuthController {
 
     private final AuthService authService;
     private final UserService userService;
+    private final AvailabilityService availabilityService;
 
 
     @PostMapping("/api/auth/login")
@@ -53,6 +55,20 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @GetMapping("/api/auth/availability")
+    public ResponseEntity<?> availability(@RequestParam(required = false) String username,
+                                          @RequestParam(required = false) String email) {
+        boolean hasUsername = username != null && !username.isBlank();
+        boolean hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error",
+                    "errors", Map.of("username", "Provide a username and/or an email to check")));
+        }
+        return ResponseEntity.ok(new AvailabilityResponse(
+                hasUsername ? availabilityService.isUsernameAvailable(username) : null,
+                hasEmail ? availabilityService.isEmailAvailable(email) : null));
+    }
+
     private ResponseEntity<?> handleValidationErrors(BindingResult bindingResult) {
         Map<String, String> errors = new HashMap<>();
         bindingResult.getFieldErrors().forEach(
@@ -1,36 +1,110 @@
 package demo.todolist.web;
 
+import demo.todolist.exception.PreconditionFailedException;
+import demo.todolist.exception.PreconditionRequiredException;
+import demo.todolist.security.AuthenticatedUser;
+import demo.todolist.service.TaskEventBus;
 import demo.todolist.service.TaskService;
+import demo.todolist.service.TaskSyncService;
+import demo.todolist.service.UserService;
+import demo.todolist.web.dto.TaskBatchRequest;
+import demo.todolist.web.dto.TaskBatchResult;
+import demo.todolist.web.dto.TaskChangesResponse;
+import demo.todolist.web.dto.TaskPageResponse;
+import demo.todolist.web.dto.TaskPatchRequest;
 import demo.todolist.web.dto.TaskRequest;
 import demo.todolist.web.dto.TaskResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/tasks")
 @RequiredArgsConstructor
 public class TaskController {
 
+    // private: lets clients keep the body but makes them revalidate on every poll
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final TaskService taskService;
+    private final UserService userService;
+    private final TaskEventBus taskEventBus;
+    private final TaskSyncService taskSyncService;
 
     @PostMapping
     public ResponseEntity<TaskResponse> createTask(@Valid @RequestBody TaskRequest request) {
         return ResponseEntity.ok(taskService.createTask(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<TaskBatchResult>> applyBatch(@Valid @RequestBody TaskBatchRequest request) {
+        return ResponseEntity.ok(taskService.applyBatch(request.operations()));
+    }
+
     @GetMapping
-    public ResponseEntity<List<TaskResponse>> getTasksForCurrentUser() {
-        return ResponseEntity.ok(taskService.getTasksForCurrentUser());
+    public ResponseEntity<List<TaskResponse>> getTasksForCurrentUser(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = taskService.getTasksEtag(active, createdFrom, createdTo, direction);
+        return conditionalGet(ifNoneMatch, etag,
+                () -> taskService.getTasksForCurrentUser(active, createdFrom, createdTo, direction));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<TaskPageResponse> getTaskPage(@RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Boolean active) {
+        return ResponseEntity.ok(taskService.getTaskPage(limit, cursor, active));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        AuthenticatedUser owner = userService.getCurrentPrincipal();
+        StreamingResponseBody body = out -> taskService.exportTasks(owner, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Delta sync: tasks created or changed and ids deleted after {@code since}, the {@code next} of the
+     * previous call. Without it (or once it is too old) the full list comes back with {@code reset}.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChangesResponse> getChanges(@RequestParam(required = false) String since) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(taskSyncService.getChangesSince(since));
+    }
+
+    /**
+     * Server-sent events for the caller's tasks: {@code created}, {@code updated} and {@code deleted},
+     * each carrying a {@code TaskChangeResponse}. The request is suspended, it holds no thread while idle.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return taskEventBus.subscribe(userService.getCurrentPrincipal().id());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TaskResponse> getTaskById(@PathVariable UUID id) {
-        return ResponseEntity.ok(taskService.getTaskById(id));
+    public ResponseEntity<TaskResponse> getTaskById(@PathVariable UUID id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, taskService.getTaskEtag(id), () -> taskService.getTaskById(id));
     }
 
     @PutMapping("/{id}")
@@ -38,6 +112,19 @@ public class TaskController {
                                                    @Valid @RequestBody TaskRequest request) {
         return ResponseEntity.ok(taskService.updateTask(id, request));
     }
+
+    /**
+     * Changes only the fields present in the body, provided the task is still at the ETag sent in
+     * If-Match: 412 when it has moved on, 428 without If-Match. Answers with the new ETag.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<TaskResponse> patchTask(@PathVariable UUID id,
+                                                  @Valid @RequestBody TaskPatchRequest request,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TaskResponse task = taskService.patchTask(id, request, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(TaskService.taskEtag(task.version())).body(task);
+    }
+
     @PutMapping("/{id}/toggle-completion")
     public ResponseEntity<TaskResponse> toggleTaskCompletion(@PathVariable UUID id) {
         return ResponseEntity.ok(taskService.toggleTaskCompletion(id));
@@ -48,4 +135,57 @@ public class TaskController {
         taskService.deleteTask(id);
         return ResponseEntity.noContent().build();
     }
+
+    /* ---------- conditional GET ---------- */
+
+    /**
+     * Answers 304 when If-None-Match carries the current ETag, before {@code body} loads anything.
+     * The ETag is only sent with 200 / 304, never with an error raised while loading the body.
+     */
+    private static <T> ResponseEntity<T> conditionalGet(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (etag != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        T result = body.get();
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (etag != null) {
+            ok.eTag(etag);
+        }
+        return ok.body(result);
+    }
+
+    /* ---------- conditional write ---------- */
+
+    // strong comparison (RFC 9110): a weak tag, a list or "*" never names one version; a bare number is accepted
+    private static long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("If-Match with the task's ETag is required");
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the task's ETag");
+        }
+    }
+
+    // weak comparison, as RFC 9110 prescribes for If-None-Match
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,11 @@
+package demo.todolist.web.dto;
+
+import java.util.List;
+
+public record AdminUserPageResponse(
+        List<AdminUserResponse> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+) {}
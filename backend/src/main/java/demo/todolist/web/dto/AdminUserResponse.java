@@ -1,5 +1,7 @@
 package demo.todolist.web.dto;
 
+import demo.todolist.entity.UserRole;
+
 import java.util.UUID;
 
 public record AdminUserResponse(
@@ -8,4 +10,9 @@ public record AdminUserResponse(
         String email,
         String role,
         int tasksDone
-) {}
+) {
+    // used by the JPQL constructor projections behind UserRepository.findAdminPage
+    public AdminUserResponse(UUID id, String username, String email, UserRole role, int tasksDone) {
+        this(id, username, email, role.name(), tasksDone);
+    }
+}
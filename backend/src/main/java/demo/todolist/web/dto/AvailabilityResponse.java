@@ -0,0 +1,9 @@
+package demo.todolist.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AvailabilityResponse(
+        Boolean usernameAvailable,
+        Boolean emailAvailable
+) {}
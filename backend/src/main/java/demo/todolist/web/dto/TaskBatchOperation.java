@@ -0,0 +1,16 @@
+package demo.todolist.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record TaskBatchOperation(
+        @NotNull(message = "Operation type is required")
+        TaskBatchOperationType type,
+
+        UUID id,
+
+        @Valid
+        TaskRequest task
+) {}
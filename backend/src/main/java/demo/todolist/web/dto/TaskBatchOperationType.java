@@ -0,0 +1,5 @@
+package demo.todolist.web.dto;
+
+public enum TaskBatchOperationType {
+    CREATE, UPDATE, DELETE
+}
@@ -0,0 +1,13 @@
+package demo.todolist.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record TaskBatchRequest(
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 500, message = "A batch cannot contain more than 500 operations")
+        List<@Valid TaskBatchOperation> operations
+) {}
@@ -0,0 +1,24 @@
+package demo.todolist.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskBatchResult(
+        int index,
+        TaskBatchOperationType type,
+        UUID id,
+        int status,
+        String error,
+        TaskResponse task
+) {
+    public static TaskBatchResult ok(int index, TaskBatchOperationType type, HttpStatus status, UUID id, TaskResponse task) {
+        return new TaskBatchResult(index, type, id, status.value(), null, task);
+    }
+
+    public static TaskBatchResult failed(int index, TaskBatchOperationType type, HttpStatus status, UUID id, String error) {
+        return new TaskBatchResult(index, type, id, status.value(), error, null);
+    }
+}
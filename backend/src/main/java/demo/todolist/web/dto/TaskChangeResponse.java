@@ -0,0 +1,15 @@
+package demo.todolist.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * One entry of the /api/tasks/stream feed; {@code task} is absent for {@link TaskChangeType#DELETED}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskChangeResponse(
+        TaskChangeType type,
+        UUID taskId,
+        TaskResponse task
+) {}
@@ -0,0 +1,5 @@
+package demo.todolist.web.dto;
+
+public enum TaskChangeType {
+    CREATED, UPDATED, DELETED
+}
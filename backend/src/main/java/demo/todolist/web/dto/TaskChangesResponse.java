@@ -0,0 +1,16 @@
+package demo.todolist.web.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One delta sync step. With {@code reset} the client drops what it has and keeps {@code changed},
+ * which is then the full list; otherwise it upserts {@code changed} and removes {@code deleted}.
+ * {@code next} is the {@code since} of the following call.
+ */
+public record TaskChangesResponse(
+        List<TaskResponse> changed,
+        List<UUID> deleted,
+        boolean reset,
+        String next
+) {}
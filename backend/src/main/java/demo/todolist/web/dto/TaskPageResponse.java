@@ -0,0 +1,9 @@
+package demo.todolist.web.dto;
+
+import java.util.List;
+
+public record TaskPageResponse(
+        List<TaskResponse> items,
+        int limit,
+        String nextCursor
+) {}
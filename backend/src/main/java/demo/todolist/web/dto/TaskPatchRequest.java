@@ -0,0 +1,28 @@
+package demo.todolist.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Body of PATCH /api/tasks/{id}: only the fields to change. A null field is left as it is,
+ * so a description is cleared with an empty string.
+ */
+public record TaskPatchRequest(
+        @Pattern(regexp = "(?s).*\\S.*", message = "Title cannot be blank")
+        @Size(max = 50, message = "Title cannot be longer than 50 characters")
+        String title,
+
+        @Size(max = 250, message = "Description cannot be longer than 250 characters")
+        String description,
+
+        Boolean isActive
+) {
+
+    @JsonIgnore
+    @AssertTrue(message = "At least one field must be set")
+    public boolean isAnyFieldSet() {
+        return title != null || description != null || isActive != null;
+    }
+}
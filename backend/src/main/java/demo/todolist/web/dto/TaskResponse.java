@@ -9,5 +9,6 @@ public record TaskResponse(
         String description,
         boolean isActive,
         LocalDateTime createdAt,
-        String ownerUsername
+        String ownerUsername,
+        long version
 ) {}
@@ -0,0 +1,19 @@
+package demo.todolist.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserDeletionStatusResponse(
+        UUID userId,
+        State state,
+        long tasksTotal,
+        long tasksDeleted,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+    public enum State { RUNNING, DONE, FAILED }
+}
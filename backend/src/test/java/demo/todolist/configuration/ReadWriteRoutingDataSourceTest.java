@@ -0,0 +1,136 @@
+package demo.todolist.configuration;
+
+import demo.todolist.entity.UserRole;
+import demo.todolist.security.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each knows its own name,
+ * so a query shows where the connection came from.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final DriverManagerDataSource primary = h2("routing-primary");
+    private final DriverManagerDataSource replica = h2("routing-replica");
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    private static DriverManagerDataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(32))");
+        setup.execute("DELETE FROM node");
+        setup.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private void route(Duration pinAfterWrite) {
+        DataSource routed = ReadReplicaConfig.routing(primary, replica, new ReadYourWritesGuard(pinAfterWrite, 1000));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routed);
+        jdbc = new JdbcTemplate(routed);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    void setUp() {
+        route(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void signIn(UUID userId) {
+        AuthenticatedUser principal = new AuthenticatedUser(userId, "user-" + userId, UserRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private String readOnlyNode() {
+        return readOnly.execute(status -> node());
+    }
+
+    private void write() {
+        readWrite.executeWithoutResult(status -> jdbc.update("UPDATE node SET name = name"));
+    }
+
+    @Test
+    void readOnlyTransaction_GoesToReplica() {
+        assertEquals("routing-replica", readOnlyNode());
+    }
+
+    @Test
+    void readWriteTransaction_AndNoTransaction_GoToPrimary() {
+        assertEquals("routing-primary", readWrite.execute(status -> node()));
+        assertEquals("routing-primary", node());
+    }
+
+    @Test
+    void afterACommittedWrite_WriterIsPinnedToPrimary_OthersAreNot() {
+        // given
+        UUID writer = UUID.randomUUID();
+        UUID reader = UUID.randomUUID();
+        signIn(writer);
+        assertEquals("routing-replica", readOnlyNode());
+
+        // when
+        write();
+
+        // then
+        assertEquals("routing-primary", readOnlyNode());
+        signIn(reader);
+        assertEquals("routing-replica", readOnlyNode());
+    }
+
+    @Test
+    void rolledBackWrite_DoesNotPin() {
+        // given
+        signIn(UUID.randomUUID());
+
+        // when
+        readWrite.executeWithoutResult(status -> {
+            jdbc.update("UPDATE node SET name = name");
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals("routing-replica", readOnlyNode());
+    }
+
+    @Test
+    void pin_ExpiresAfterTheWindow() {
+        // given: a zero window lets the pin lapse immediately
+        route(Duration.ZERO);
+        signIn(UUID.randomUUID());
+
+        // when
+        write();
+
+        // then
+        assertEquals("routing-replica", readOnlyNode());
+    }
+}
@@ -8,11 +8,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
@@ -49,6 +52,18 @@ class GlobalExceptionHandlerTest {
         assertEquals("User not found", resp.message());
     }
 
+    /* --------------- PasswordHashingBusyException --------------- */
+    @Test
+    void handleHashingBusy_ReturnsServiceUnavailableWithRetryAfter() {
+        PasswordHashingBusyException ex = new PasswordHashingBusyException("busy", Duration.ofMillis(1500));
+
+        ResponseEntity<ErrorResponse> resp = handler.handleHashingBusy(ex);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, resp.getStatusCode());
+        assertEquals("2", resp.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("busy", resp.getBody().message());
+    }
+
     /* --------------- MethodArgumentNotValidException --------------- */
     @Mock
     BindingResult bindingResult;
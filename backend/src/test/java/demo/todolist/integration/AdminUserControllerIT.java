@@ -1,8 +1,11 @@
 package demo.todolist.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.todolist.repository.TaskRepository;
 import demo.todolist.repository.UserRepository;
+import demo.todolist.service.UserCache;
 import demo.todolist.web.dto.RegisterRequest;
+import demo.todolist.web.dto.TaskRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -21,13 +24,16 @@ import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @TestPropertySource(properties = {
-        "spring.jpa.hibernate.ddl-auto=create-drop"
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "users.deletion.inline-max-tasks=2",
+        "users.deletion.chunk-size=2"
 })
 class AdminUserControllerIT {
 
@@ -37,6 +43,8 @@ class AdminUserControllerIT {
     @Autowired WebApplicationContext context;
     @Autowired ObjectMapper mapper;
     @Autowired UserRepository userRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired UserCache userCache;
 
     MockMvc mockMvc;
 
@@ -44,6 +52,7 @@ class AdminUserControllerIT {
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
         userRepo.deleteAll();
+        userCache.invalidateAll();
     }
 
     record TestUser(UUID id, String username, String token) {}
@@ -108,6 +117,78 @@ class AdminUserControllerIT {
             assertThat(userRepo.existsById(normal.id())).isFalse();
         }
 
+        @Test
+        @DisplayName("DELETE /{id} – голям акаунт: 202, изтриване на части във фонов режим, прогрес през /deletion")
+        void deleteUser_largeAccount_runsInBackground() throws Exception {
+            TestUser admin = createUser(true);
+            TestUser normal = createUser(false);
+            for (int i = 0; i < 5; i++) {
+                mockMvc.perform(post("/api/tasks")
+                                .contentType(JSON)
+                                .content(toJson(new TaskRequest("task " + i, null, true)))
+                                .header("Authorization", auth(normal.token())))
+                        .andExpect(status().isOk());
+            }
 
+            mockMvc.perform(delete("/api/admin/users/{id}", normal.id())
+                            .header("Authorization", auth(admin.token())))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", endsWith("/api/admin/users/" + normal.id() + "/deletion")))
+                    .andExpect(jsonPath("$.tasksTotal").value(5));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            String state;
+            do {
+                MvcResult res = mockMvc.perform(get("/api/admin/users/{id}/deletion", normal.id())
+                                .header("Authorization", auth(admin.token())))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                state = mapper.readTree(res.getResponse().getContentAsString()).get("state").asText();
+                if ("RUNNING".equals(state)) {
+                    Thread.sleep(50);
+                }
+            } while ("RUNNING".equals(state) && System.currentTimeMillis() < deadline);
+
+            assertThat(state).isEqualTo("DONE");
+            assertThat(taskRepo.countByOwnerId(normal.id())).isZero();
+            assertThat(userRepo.existsById(normal.id())).isFalse();
+        }
+
+        @Test
+        @DisplayName("GET / – страница, сортиране и username префикс (с escape на _ и %)")
+        void listUsers_pagedSortedAndFiltered() throws Exception {
+            TestUser admin = createUser(true);
+            for (String name : new String[]{"ab_c", "abxc", "zed"}) {
+                mockMvc.perform(post("/api/auth/register")
+                                .contentType(JSON)
+                                .content(toJson(new RegisterRequest(name, name.replace("_", "") + "@mail.com", PASSWORD))))
+                        .andExpect(status().isCreated());
+            }
+
+            mockMvc.perform(get("/api/admin/users")
+                            .param("username", "ab_")
+                            .header("Authorization", auth(admin.token())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(1))
+                    .andExpect(jsonPath("$.content[0].username").value("ab_c"))
+                    .andExpect(jsonPath("$.totalElements").value(1));
+
+            mockMvc.perform(get("/api/admin/users")
+                            .param("sort", "username")
+                            .param("direction", "desc")
+                            .param("size", "2")
+                            .header("Authorization", auth(admin.token())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andExpect(jsonPath("$.content[0].username").value("zed"))
+                    .andExpect(jsonPath("$.totalElements").value(4))
+                    .andExpect(jsonPath("$.totalPages").value(2));
+
+            mockMvc.perform(get("/api/admin/users")
+                            .param("sort", "password")
+                            .header("Authorization", auth(admin.token())))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors.sort").exists());
+        }
     }
 }
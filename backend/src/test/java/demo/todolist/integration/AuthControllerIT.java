@@ -3,6 +3,7 @@ package demo.todolist.integration;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.todolist.repository.UserRepository;
+import demo.todolist.service.UserCache;
 import demo.todolist.web.dto.RegisterRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,10 +13,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -29,6 +40,7 @@ AuthControllerIT {
 
     @Autowired private MockMvc mvc;
     @Autowired private UserRepository userRepository;
+    @Autowired private UserCache userCache;
     @Autowired private ObjectMapper mapper;
     private static final String BASE = "/api/auth/register";
     private static final MediaType JSON = MediaType.APPLICATION_JSON;
@@ -37,6 +49,7 @@ AuthControllerIT {
     @BeforeEach
     void cleanDatabase() {
         userRepository.deleteAll();
+        userCache.invalidateAll();
     }
 
     private String jsonRegisterBody(String username, String email, String password) {
@@ -79,6 +92,59 @@ AuthControllerIT {
                         .value("This email is already in use!"));
     }
 
+    @Test
+    @DisplayName("едновременна регистрация със същото username създава само един акаунт")
+    void register_concurrentSameUsername_onlyOneSucceeds() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String body = mapper.writeValueAsString(new RegisterRequest(
+                        "twin", "twin" + i + "@example.com", "Str0ngPass!1"));
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return mvc.perform(post(BASE).contentType(JSON).content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> f : results) {
+                statuses.add(f.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(statuses).containsOnlyOnce(201);
+            assertThat(statuses).filteredOn(st -> st != 201).containsOnly(400);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(userRepository.findAll()).filteredOn(u -> u.getUsername().equals("twin")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("availability: заетото username/email е недостъпно, новото е свободно")
+    void availability_reflectsRegisteredUsers() throws Exception {
+        var body = mapper.writeValueAsString(new RegisterRequest(
+                "taken", "taken@example.com", "Str0ngPass!1"));
+        mvc.perform(post(BASE).contentType(JSON).content(body))
+                .andExpect(status().isCreated());
+
+        mvc.perform(get("/api/auth/availability").param("username", "taken").param("email", "taken@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(false));
+
+        mvc.perform(get("/api/auth/availability").param("username", "free-name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(true))
+                .andExpect(jsonPath("$.emailAvailable").doesNotExist());
+
+        mvc.perform(get("/api/auth/availability"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Nested
     @DisplayName("/api/auth/login")
     class LoginEndpoint {
@@ -115,5 +181,35 @@ AuthControllerIT {
             assertThat(root.get("accessToken").asText()).hasSizeGreaterThan(30);
             assertThat(root.get("refreshToken").asText()).hasSizeGreaterThan(30);
         }
+
+        @Test
+        @DisplayName("успешен login пре-хешира паролата с калибрираната цена")
+        void login_rehashesPasswordWithCalibratedCost() throws Exception {
+            String username = "legacy";
+            String password = "Secur3Pass!1";
+            mvc.perform(post("/api/auth/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonRegisterBody(username, "legacy@example.com", password)))
+                    .andExpect(status().isCreated());
+
+            // хеш със стара цена (5), тестовият профил калибрира на 4
+            var user = userRepository.findUserByUsername(username).orElseThrow();
+            user.setPassword(new BCryptPasswordEncoder(5).encode(password));
+            userRepository.save(user);
+            userCache.invalidateAll();
+
+            mvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(String.format("""
+                                {
+                                  \"username\": \"%s\",
+                                  \"password\": \"%s\"
+                                }
+                                """, username, password)))
+                    .andExpect(status().isOk());
+
+            String rehashed = userRepository.findUserByUsername(username).orElseThrow().getPassword();
+            assertThat(rehashed).startsWith("$2a$04$");
+        }
     }
 }
@@ -0,0 +1,172 @@
+package demo.todolist.integration;
+
+import demo.todolist.entity.Task;
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.security.AuthenticatedUser;
+import demo.todolist.service.TaskService;
+import demo.todolist.service.UserCache;
+import demo.todolist.web.dto.TaskRequest;
+import demo.todolist.web.dto.TaskResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The read/write split through the real stack: two in-memory H2 databases, the JPA transaction manager
+ * and {@code @Transactional} services. The replica gets a copy of the primary before each test; rows
+ * changed on the primary afterwards play the part of replication lag.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingIT.PRIMARY_URL,
+        "replica.datasource.url=" + ReadReplicaRoutingIT.REPLICA_URL
+})
+class ReadReplicaRoutingIT {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-it-primary;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-it-replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    /** The replica needs the schema before startup, when the availability filters are loaded read-only. */
+    @TestConfiguration
+    static class ReplicaSchema {
+
+        @EventListener(ContextRefreshedEvent.class)
+        void copyPrimary(ContextRefreshedEvent event) throws IOException {
+            replicate(event.getApplicationContext().getBean("primaryDataSource", DataSource.class));
+        }
+    }
+
+    @Autowired private TaskService taskService;
+    @Autowired private TaskRepository taskRepo;
+    @Autowired private UserRepository userRepo;
+    @Autowired private UserCache userCache;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired @Qualifier("primaryDataSource") private DataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private AuthenticatedUser owner;
+    private UUID taskId;
+
+    private static void replicate(DataSource source) throws IOException {
+        Path dump = Files.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(source).execute("SCRIPT TO '" + dump + "'");
+            JdbcTemplate target = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+            target.execute("DROP ALL OBJECTS");
+            target.execute("RUNSCRIPT FROM '" + dump + "'");
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        SecurityContextHolder.clearContext();
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+        userCache.invalidateAll();
+
+        User user = userRepo.save(User.builder()
+                .username("routed")
+                .email("routed@test.com")
+                .password("irrelevant")
+                .role(UserRole.USER)
+                .build());
+        taskId = taskRepo.save(Task.builder()
+                .title("Replicated")
+                .createdAt(LocalDateTime.now())
+                .isActive(true)
+                .owner(user)
+                .build()).getId();
+        owner = AuthenticatedUser.of(user);
+
+        replicate(primaryDataSource);
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void signIn() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(owner, null, List.of()));
+    }
+
+    private void renameOnPrimary(String title) {
+        primary.update("UPDATE tasks SET title = ? WHERE id = ?", title, taskId);
+    }
+
+    private static long countTasks(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM tasks", Long.class);
+    }
+
+    private List<String> listTitles() {
+        return taskService.getTasksForCurrentUser(null, null, null, "asc").stream()
+                .map(TaskResponse::title)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("readOnly услуга чете от репликата, read-write транзакция – от основната база")
+    void readOnlyService_readsReplica_readWriteTransactionReadsPrimary() {
+        // given: the replica has not seen the rename yet
+        renameOnPrimary("Renamed on primary");
+        signIn();
+
+        // when / then
+        assertThat(listTitles()).containsExactly("Replicated");
+        assertThat(taskService.getTaskById(taskId).title()).isEqualTo("Replicated");
+
+        String onPrimary = new TransactionTemplate(transactionManager).execute(status ->
+                taskRepo.findByIdAndOwnerId(taskId, owner.id()).orElseThrow().getTitle());
+        assertThat(onPrimary).isEqualTo("Renamed on primary");
+    }
+
+    @Test
+    @DisplayName("запис отива в основната база, а авторът му чете оттам до края на прозореца")
+    void write_goesToPrimary_andPinsTheWriter() {
+        // given
+        signIn();
+
+        // when
+        taskService.createTask(new TaskRequest("Fresh", null, true));
+
+        // then
+        assertThat(countTasks(primary)).isEqualTo(2);
+        assertThat(countTasks(replica)).isEqualTo(1);
+        assertThat(listTitles()).containsExactlyInAnyOrder("Replicated", "Fresh");
+    }
+}
@@ -0,0 +1,100 @@
+package demo.todolist.integration;
+
+import demo.todolist.entity.RefreshToken;
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import demo.todolist.repository.RefreshTokenRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.service.RefreshTokenService;
+import demo.todolist.service.UserCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-user refresh-token cap on a schema that predates last_used_at: the column is nullable there
+ * and old rows hold NULL, as ddl-auto=update leaves them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "refresh-tokens.max-active-per-user=2")
+class RefreshTokenCapIT {
+
+    private static final Duration REFRESH_TTL = Duration.ofMillis(2_592_000_000L);   // jwt.refresh-expiration
+
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private RefreshTokenRepository refreshTokenRepo;
+    @Autowired private UserRepository userRepo;
+    @Autowired private UserCache userCache;
+    @Autowired private JdbcTemplate jdbc;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepo.deleteAll();
+        userRepo.deleteAll();
+        userCache.invalidateAll();
+        owner = userRepo.save(User.builder()
+                .username("legacy")
+                .email("legacy@test.com")
+                .password("irrelevant")
+                .role(UserRole.USER)
+                .build());
+        jdbc.execute("ALTER TABLE refresh_tokens ALTER COLUMN last_used_at SET NULL");
+    }
+
+    @AfterEach
+    void restoreSchema() {
+        refreshTokenRepo.deleteAll();
+        jdbc.execute("ALTER TABLE refresh_tokens ALTER COLUMN last_used_at SET NOT NULL");
+    }
+
+    private UUID insertLegacyToken(Instant issuedAt) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO refresh_tokens (id, token, owner_id, expires_at, last_used_at, revoked) "
+                        + "VALUES (?, ?, ?, ?, NULL, FALSE)",
+                id, UUID.randomUUID().toString(), owner.getId(), Timestamp.from(issuedAt.plus(REFRESH_TTL)));
+        return id;
+    }
+
+    private boolean isRevoked(UUID id) {
+        return refreshTokenRepo.findById(id).orElseThrow().isRevoked();
+    }
+
+    @Test
+    @DisplayName("стари токени с NULL last_used_at получават времето на издаване и лимитът ги отнема")
+    void legacyTokens_areBackfilled_andRevokedByTheCap() {
+        // given: three tokens from before last_used_at
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        UUID oldest = insertLegacyToken(now.minus(Duration.ofDays(3)));
+        UUID middle = insertLegacyToken(now.minus(Duration.ofDays(2)));
+        UUID newest = insertLegacyToken(now.minus(Duration.ofDays(1)));
+
+        // when
+        refreshTokenService.backfillLastUsedAt();
+        RefreshToken issued = refreshTokenService.createTokenForUser(owner, REFRESH_TTL.toMillis());
+
+        // then: the new token and the most recently issued legacy one stay
+        assertThat(refreshTokenRepo.findById(newest).orElseThrow().getLastUsedAt())
+                .isEqualTo(now.minus(Duration.ofDays(1)));
+        assertThat(isRevoked(oldest)).isTrue();
+        assertThat(isRevoked(middle)).isTrue();
+        assertThat(isRevoked(newest)).isFalse();
+        assertThat(isRevoked(issued.getId())).isFalse();
+    }
+}
@@ -0,0 +1,107 @@
+package demo.todolist.integration;
+
+import demo.todolist.entity.Task;
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.service.UserCache;
+import demo.todolist.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TaskCompletionConcurrencyIT {
+
+    private static final int TASKS = 40;
+    private static final int TOGGLES_PER_TASK = 2;
+    private static final int THREADS = 8;
+
+    @Autowired private TaskService taskService;
+    @Autowired private TaskRepository taskRepo;
+    @Autowired private UserRepository userRepo;
+    @Autowired private UserCache userCache;
+
+    private User owner;
+    private final List<UUID> taskIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+        userCache.invalidateAll();
+
+        owner = userRepo.save(User.builder()
+                .username("racer")
+                .email("racer@test.com")
+                .password("irrelevant")
+                .tasksDone(0)
+                .role(UserRole.USER)
+                .build());
+
+        taskIds.clear();
+        for (int i = 0; i < TASKS; i++) {
+            Task task = taskRepo.save(Task.builder()
+                    .title("Task " + i)
+                    .createdAt(LocalDateTime.now())
+                    .isActive(true)
+                    .owner(owner)
+                    .build());
+            taskIds.add(task.getId());
+        }
+    }
+
+    @Test
+    void parallelToggles_countEachTaskExactlyOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (UUID taskId : taskIds) {
+                for (int i = 0; i < TOGGLES_PER_TASK; i++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        SecurityContextHolder.getContext().setAuthentication(
+                                new UsernamePasswordAuthenticationToken(owner.getUsername(), null,
+                                        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+                        try {
+                            taskService.toggleTaskCompletion(taskId);
+                        } finally {
+                            SecurityContextHolder.clearContext();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // every task was active before its first toggle, so each must be counted exactly once
+        assertThat(userRepo.findById(owner.getId()).orElseThrow().getTasksDone()).isEqualTo(TASKS);
+        assertThat(taskRepo.findAllById(taskIds)).allMatch(Task::isCountedAsDone);
+    }
+}
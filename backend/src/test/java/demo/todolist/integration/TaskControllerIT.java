@@ -4,8 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.todolist.repository.TaskRepository;
 import demo.todolist.repository.UserRepository;
+import demo.todolist.service.UserCache;
 import demo.todolist.web.dto.RegisterRequest;
 import demo.todolist.web.dto.TaskRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,11 +23,15 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -40,6 +48,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
         "spring.jpa.hibernate.ddl-auto=create-drop",
         "spring.jpa.show-sql=false",
         "spring.jackson.serialization.write-dates-as-timestamps=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
 })
 class TaskControllerIT {
 
@@ -51,6 +60,8 @@ class TaskControllerIT {
     @Autowired private ObjectMapper mapper;
     @Autowired private UserRepository userRepo;
     @Autowired private TaskRepository taskRepo;
+    @Autowired private UserCache userCache;
+    @Autowired private EntityManagerFactory entityManagerFactory;
 
     private MockMvc mockMvc;
 
@@ -65,6 +76,7 @@ class TaskControllerIT {
                 .build();
         taskRepo.deleteAll();
         userRepo.deleteAll();
+        userCache.invalidateAll();
         userCounter.set(0);
     }
 
@@ -99,6 +111,10 @@ class TaskControllerIT {
         return new TestUser(username, email, token);
     }
 
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
     private String toJson(Object obj) throws Exception {
         return mapper.writeValueAsString(obj);
     }
@@ -130,6 +146,19 @@ class TaskControllerIT {
         return node.get("id").asText();
     }
 
+    private JsonNode body(ResultActions actions) throws Exception {
+        return mapper.readTree(actions.andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode patchWithVersion(TestUser user, String taskId, long version, String json) throws Exception {
+        return body(mockMvc.perform(patch("/api/tasks/{id}", taskId)
+                        .header("Authorization", bearer(user.token()))
+                        .header("If-Match", "\"" + version + "\"")
+                        .contentType(JSON)
+                        .content(json))
+                .andExpect(status().isOk()));
+    }
+
     /* ---------- Tests ---------- */
 
     @Nested
@@ -207,6 +236,330 @@ class TaskControllerIT {
             assertThat(taskRepo.existsById(UUID.fromString(taskId))).isFalse();
         }
 
+        @Test
+        @DisplayName("GET/PUT/DELETE /api/tasks/{id} правят по една заявка за достъп (+ версията за ETag)")
+        void singleTaskEndpoints_runOneOwnershipScopedQuery() throws Exception {
+            TestUser user = createTestUser();
+            String taskId = createTaskAndGetId(user, simpleTask("Counted"));
+            Statistics stats = statistics();
+
+            stats.clear();
+            mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk());
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(2);     // version + select
+
+            stats.clear();
+            mockMvc.perform(put("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .contentType(JSON)
+                            .content(toJson(fullTask("Renamed", "desc", true))))
+                    .andExpect(status().isOk());
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(4);     // select + version bump + new version + update
+
+            stats.clear();
+            mockMvc.perform(delete("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isNoContent());
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(4);     // version bump + new version + delete + tombstone
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks и /{id} с If-None-Match → 304 без да зареждат задачи, докато няма запис")
+        void conditionalGet_answers304UntilAWrite() throws Exception {
+            TestUser user = createTestUser();
+            String taskId = createTaskAndGetId(user, simpleTask("Polled"));
+
+            String listTag = mockMvc.perform(get("/api/tasks")
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+            String taskTag = mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            Statistics stats = statistics();
+            stats.clear();
+            mockMvc.perform(get("/api/tasks")
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-None-Match", listTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+            mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-None-Match", taskTag))
+                    .andExpect(status().isNotModified());
+            assertThat(stats.getEntityLoadCount()).isZero();
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(2);     // one version lookup each
+
+            // a filtered list never matches the unfiltered tag
+            mockMvc.perform(get("/api/tasks")
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-None-Match", listTag)
+                            .param("active", "true"))
+                    .andExpect(status().isOk());
+
+            // any write moves the version
+            mockMvc.perform(put("/api/tasks/{id}/toggle-completion", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/api/tasks")
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-None-Match", listTag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].isActive").value(false));
+            mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-None-Match", taskTag))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("PATCH /api/tasks/{id} с If-Match променя само подадените полета, 412 при остаряла версия")
+        void patchTask_conditionalPartialUpdate() throws Exception {
+            TestUser user = createTestUser();
+            String taskId = createTaskAndGetId(user, fullTask("Draft", "keep me", true));
+            String etag = mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            Statistics stats = statistics();
+            stats.clear();
+            String newEtag = mockMvc.perform(patch("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-Match", etag)
+                            .contentType(JSON)
+                            .content("{\"title\":\"Final\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").value("Final"))
+                    .andExpect(jsonPath("$.description").value("keep me"))
+                    .andExpect(jsonPath("$.isActive").value(true))
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(newEtag).isNotEqualTo(etag);
+            // version bump + new version + conditional update + read back; nothing loaded before the write
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(4);
+
+            // a second writer still holding the old ETag loses
+            mockMvc.perform(patch("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .header("If-Match", etag)
+                            .contentType(JSON)
+                            .content("{\"isActive\":false}"))
+                    .andExpect(status().isPreconditionFailed());
+            mockMvc.perform(patch("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .contentType(JSON)
+                            .content("{\"isActive\":false}"))
+                    .andExpect(status().isPreconditionRequired());
+
+            mockMvc.perform(get("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", newEtag))
+                    .andExpect(jsonPath("$.isActive").value(true));
+        }
+
+        @Test
+        @DisplayName("PATCH /api/tasks/{id} на чужда задача връща 403 дори с вярна версия")
+        void patchForeignTask_isForbidden() throws Exception {
+            TestUser alice = createTestUser();
+            TestUser bob = createTestUser();
+            String aliceTask = createTaskAndGetId(alice, simpleTask("Private"));
+
+            mockMvc.perform(patch("/api/tasks/{id}", aliceTask)
+                            .header("Authorization", bearer(bob.token()))
+                            .header("If-Match", "\"0\"")
+                            .contentType(JSON)
+                            .content("{\"title\":\"Mine now\"}"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("PUT, toggle и batch връщат новата версия, с която следващият PATCH минава")
+        void versionFromWriteResponse_isAcceptedByPatch() throws Exception {
+            TestUser user = createTestUser();
+            String taskId = createTaskAndGetId(user, fullTask("Draft", "desc", true));
+
+            JsonNode put = body(mockMvc.perform(put("/api/tasks/{id}", taskId)
+                            .header("Authorization", bearer(user.token()))
+                            .contentType(JSON)
+                            .content(toJson(fullTask("Renamed", "desc", true))))
+                    .andExpect(status().isOk()));
+            JsonNode afterPut = patchWithVersion(user, taskId, put.get("version").asLong(), "{\"title\":\"After put\"}");
+            assertThat(afterPut.get("version").asLong()).isEqualTo(put.get("version").asLong() + 1);
+
+            JsonNode toggled = body(mockMvc.perform(put("/api/tasks/{id}/toggle-completion", taskId)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isOk()));
+            assertThat(toggled.get("version").asLong()).isEqualTo(afterPut.get("version").asLong() + 1);
+            JsonNode afterToggle = patchWithVersion(user, taskId, toggled.get("version").asLong(), "{\"title\":\"After toggle\"}");
+
+            JsonNode batch = body(mockMvc.perform(post("/api/tasks/batch")
+                            .header("Authorization", bearer(user.token()))
+                            .contentType(JSON)
+                            .content(toJson(Map.of("operations", List.of(Map.of(
+                                    "type", "UPDATE",
+                                    "id", taskId,
+                                    "task", fullTask("Batched", "desc", true)))))))
+                    .andExpect(status().isOk()));
+            long batchVersion = batch.get(0).get("task").get("version").asLong();
+            assertThat(batchVersion).isEqualTo(afterToggle.get("version").asLong() + 1);
+            patchWithVersion(user, taskId, batchVersion, "{\"title\":\"After batch\"}");
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/{id} на чужда задача връща отказ без да я зарежда")
+        void getForeignTask_isNotLoaded() throws Exception {
+            TestUser alice = createTestUser();
+            TestUser bob = createTestUser();
+            String aliceTask = createTaskAndGetId(alice, simpleTask("Private"));
+            Statistics stats = statistics();
+
+            stats.clear();
+            mockMvc.perform(get("/api/tasks/{id}", aliceTask)
+                            .header("Authorization", bearer(bob.token())))
+                    .andExpect(status().isForbidden());
+            assertThat(stats.getEntityLoadCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/page обхожда всички задачи с cursor")
+        void taskPage_walksAllTasksWithCursor() throws Exception {
+            TestUser user = createTestUser();
+            for (int i = 1; i <= 5; i++) {
+                createTaskAndGetId(user, simpleTask("Task " + i));
+            }
+
+            Set<String> seen = new HashSet<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                var request = get("/api/tasks/page")
+                        .header("Authorization", bearer(user.token()))
+                        .param("limit", "2");
+                if (cursor != null) {
+                    request.param("cursor", cursor);
+                }
+                JsonNode page = mapper.readTree(mockMvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.limit").value(2))
+                        .andReturn().getResponse().getContentAsString());
+
+                page.get("items").forEach(item -> seen.add(item.get("title").asText()));
+                cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(pages).isEqualTo(3);
+            assertThat(seen).hasSize(5);
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/export стриймва задачите като NDJSON")
+        void exportTasks_streamsNdjson() throws Exception {
+            TestUser user = createTestUser();
+            createTaskAndGetId(user, simpleTask("First"));
+            createTaskAndGetId(user, simpleTask("Second"));
+
+            MvcResult started = mockMvc.perform(get("/api/tasks/export")
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.strip().split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(mapper.readTree(lines[0]).get("title").asText()).isEqualTo("First");
+            assertThat(mapper.readTree(lines[1]).get("title").asText()).isEqualTo("Second");
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/changes връща само промените след since, включително изтритите")
+        void changes_returnsOnlyTheDelta() throws Exception {
+            TestUser user = createTestUser();
+            TestUser other = createTestUser();
+            String kept = createTaskAndGetId(user, simpleTask("Kept"));
+            String renamed = createTaskAndGetId(user, simpleTask("Renamed"));
+            String removed = createTaskAndGetId(user, simpleTask("Removed"));
+            createTaskAndGetId(other, simpleTask("Foreign"));
+
+            // first sync: the full list
+            JsonNode initial = changes(user, null);
+            assertThat(initial.get("reset").asBoolean()).isTrue();
+            assertThat(initial.get("changed")).hasSize(3);
+            assertThat(initial.get("deleted")).isEmpty();
+
+            mockMvc.perform(put("/api/tasks/{id}", renamed)
+                            .header("Authorization", bearer(user.token()))
+                            .contentType(JSON)
+                            .content(toJson(fullTask("Renamed twice", null, true))))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/tasks/{id}", removed)
+                            .header("Authorization", bearer(user.token())))
+                    .andExpect(status().isNoContent());
+            String added = createTaskAndGetId(user, simpleTask("Added"));
+            createTaskAndGetId(other, simpleTask("Foreign again"));
+
+            // then only what changed, in write order; "Kept" is not sent again
+            Statistics stats = statistics();
+            stats.clear();
+            JsonNode delta = changes(user, initial.get("next").asText());
+            assertThat(delta.get("reset").asBoolean()).isFalse();
+            assertThat(delta.get("changed")).extracting(node -> node.get("id").asText()).containsExactly(renamed, added);
+            assertThat(delta.get("changed").get(0).get("title").asText()).isEqualTo("Renamed twice");
+            assertThat(delta.get("deleted")).extracting(node -> node.asText()).containsExactly(removed);
+            assertThat(delta.get("changed")).extracting(node -> node.get("id").asText()).doesNotContain(kept);
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(3);     // version + changed tasks + tombstones
+
+            // and nothing once caught up
+            JsonNode empty = changes(user, delta.get("next").asText());
+            assertThat(empty.get("changed")).isEmpty();
+            assertThat(empty.get("deleted")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/changes с невалиден since връща 400")
+        void changes_invalidToken_returnsBadRequest() throws Exception {
+            TestUser user = createTestUser();
+
+            mockMvc.perform(get("/api/tasks/changes")
+                            .header("Authorization", bearer(user.token()))
+                            .param("since", "not-a-token"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors.since").exists());
+        }
+
+        private JsonNode changes(TestUser user, String since) throws Exception {
+            var request = get("/api/tasks/changes")
+                    .header("Authorization", bearer(user.token()));
+            if (since != null) {
+                request.param("since", since);
+            }
+            return mapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        }
+
+        @Test
+        @DisplayName("GET /api/tasks/page с невалиден cursor връща 400")
+        void taskPage_invalidCursor_returnsBadRequest() throws Exception {
+            TestUser user = createTestUser();
+
+            mockMvc.perform(get("/api/tasks/page")
+                            .header("Authorization", bearer(user.token()))
+                            .param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors.cursor").exists());
+        }
+
 
 
     }
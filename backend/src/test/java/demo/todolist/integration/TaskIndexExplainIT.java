@@ -0,0 +1,181 @@
+package demo.todolist.integration;
+
+import demo.todolist.entity.Task;
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.service.UserCache;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN against H2 (MySQL mode) for the SQL Hibernate actually emits for {@code TaskRepository.findFiltered},
+ * captured through a statement inspector: every filter combination must be answered from an owner-leading
+ * index, never from a table scan.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TaskIndexExplainIT {
+
+    private static final int OWNERS = 5;
+    private static final int TASKS_PER_OWNER = 200;
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 2, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 5, 0, 0);
+    private static final DateTimeFormatter SQL_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired private TaskRepository taskRepo;
+    @Autowired private UserRepository userRepo;
+    @Autowired private UserCache userCache;
+    @Autowired private JdbcTemplate jdbc;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        taskRepo.deleteAll();
+        userRepo.deleteAll();
+        userCache.invalidateAll();
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>();
+        for (int o = 0; o < OWNERS; o++) {
+            User owner = userRepo.save(User.builder()
+                    .username("explain" + o)
+                    .email("explain" + o + "@test.com")
+                    .password("irrelevant")
+                    .role(UserRole.USER)
+                    .build());
+            ownerId = owner.getId();
+            for (int i = 0; i < TASKS_PER_OWNER; i++) {
+                tasks.add(Task.builder()
+                        .title("t" + i)
+                        .createdAt(start.plusHours(i))
+                        .isActive(i % 3 != 0)
+                        .owner(owner)
+                        .build());
+            }
+        }
+        taskRepo.saveAll(tasks);
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    @DisplayName("active + created_at диапазон → idx_task_owner_active_created")
+    void activeAndRange_usesOwnerActiveCreatedIndex() {
+        String plan = explainFindFiltered(true, FROM, TO, Sort.by("createdAt", "id"));
+
+        assertThat(plan).containsIgnoringCase("IDX_TASK_OWNER_ACTIVE_CREATED");
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    @DisplayName("само active → idx_task_owner_active_created")
+    void activeOnly_usesOwnerActiveCreatedIndex() {
+        String plan = explainFindFiltered(false, null, null,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(plan).containsIgnoringCase("IDX_TASK_OWNER_ACTIVE_CREATED");
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    @DisplayName("без active → индекс, започващ с owner_id")
+    void rangeOnly_usesOwnerLeadingIndex() {
+        String plan = explainFindFiltered(null, FROM, null, Sort.by("createdAt", "id"));
+
+        assertThat(plan).containsPattern("(?i)IDX_TASK_OWNER_(ACTIVE_)?CREATED");
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    @DisplayName("без филтри → индекс, започващ с owner_id")
+    void noFilters_usesOwnerLeadingIndex() {
+        String plan = explainFindFiltered(null, null, null, Sort.by("createdAt", "id"));
+
+        assertThat(plan).containsIgnoringCase("IDX_TASK_OWNER");
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    /**
+     * Runs the real repository call, takes the SQL Hibernate sent for it and explains that statement,
+     * with the bind values inlined in the order the predicates were added.
+     */
+    private String explainFindFiltered(Boolean active, LocalDateTime createdFrom, LocalDateTime createdTo, Sort sort) {
+        statements.clear();
+        taskRepo.findFiltered(ownerId, active, createdFrom, createdTo, sort);
+
+        String sql = statements.stream()
+                .filter(statement -> statement.toLowerCase(Locale.ROOT).contains("from tasks"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("findFiltered sent no query on tasks: " + statements));
+        // a filter that is not set must not show up as an "or ? is null" branch
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+
+        List<Object> binds = Stream.of(ownerId, active, createdFrom, createdTo).filter(Objects::nonNull).toList();
+        String plan = jdbc.queryForObject("EXPLAIN " + inline(sql, binds), String.class);
+        return String.valueOf(plan);
+    }
+
+    private static String inline(String sql, List<Object> binds) {
+        StringBuilder out = new StringBuilder(sql.length() + 64);
+        int next = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                out.append(literal(binds.get(next++)));
+            } else {
+                out.append(c);
+            }
+        }
+        assertThat(next).as("bind parameters in %s", sql).isEqualTo(binds.size());
+        return out.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof LocalDateTime time) {
+            return "TIMESTAMP '" + SQL_TIMESTAMP.format(time) + "'";
+        }
+        if (value instanceof Boolean flag) {
+            return flag ? "TRUE" : "FALSE";
+        }
+        return "'" + value + "'";
+    }
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        @Bean
+        HibernatePropertiesCustomizer captureStatements() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                statements.add(sql);
+                return sql;
+            });
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package demo.todolist.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.service.TaskEventBus;
+import demo.todolist.service.UserCache;
+import demo.todolist.web.dto.RegisterRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holds {@code soak.subscribers} idle SSE connections open against the embedded Tomcat and reports
+ * the heap they retain. Tagged "soak": excluded from {@code test}, run with {@code ./gradlew soakTest}.
+ * The clients are raw blocking sockets (no thread, a few hundred bytes each), so the figure is
+ * dominated by the server side: Tomcat's connection state, the suspended request and the subscriber.
+ */
+@Tag("soak")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "server.tomcat.max-connections=20000",
+        "tasks.stream.heartbeat-interval=PT1S"
+})
+class TaskStreamSoakIT {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("soak.subscribers", 2000);
+    private static final long MAX_BYTES_PER_SUBSCRIBER = 64 * 1024;
+
+    @LocalServerPort int port;
+    @Autowired TestRestTemplate rest;
+    @Autowired ObjectMapper mapper;
+    @Autowired TaskEventBus bus;
+    @Autowired UserRepository userRepo;
+    @Autowired UserCache userCache;
+
+    private final List<SocketChannel> connections = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        closeAll();
+        userRepo.deleteAll();
+        userCache.invalidateAll();
+    }
+
+    @Test
+    void idleSubscribers_retainBoundedHeap_andAreReleasedOnDisconnect() throws Exception {
+        String token = registerAndLogin();
+        int before = bus.subscriberCount();
+        long heapBefore = usedHeapAfterGc();
+
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            connections.add(openStream(token));
+        }
+        await(() -> bus.subscriberCount() - before == SUBSCRIBERS);
+
+        long perSubscriber = (usedHeapAfterGc() - heapBefore) / SUBSCRIBERS;
+        System.out.printf("[soak] %d idle SSE subscribers, ~%d bytes of heap each, %d live threads%n",
+                SUBSCRIBERS, perSubscriber, ManagementFactory.getThreadMXBean().getThreadCount());
+        assertThat(perSubscriber).isLessThan(MAX_BYTES_PER_SUBSCRIBER);
+
+        // the heartbeat's failed writes find the closed sockets
+        closeAll();
+        await(() -> bus.subscriberCount() == before);
+    }
+
+    /* ---------- helpers ---------- */
+
+    private String registerAndLogin() throws Exception {
+        rest.postForEntity("/api/auth/register",
+                new RegisterRequest("soaker", "soaker@test.com", "Str0ngPass!1"), String.class);
+        ResponseEntity<String> login = rest.postForEntity("/api/auth/login",
+                Map.of("username", "soaker", "password", "Str0ngPass!1"), String.class);
+        JsonNode body = mapper.readTree(login.getBody());
+        return body.get("accessToken").asText();
+    }
+
+    private SocketChannel openStream(String token) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+        String request = "GET /api/tasks/stream HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Accept: text/event-stream\r\n"
+                + "Authorization: Bearer " + token + "\r\n\r\n";
+        channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+
+        // wait for the status line so the subscription exists before the next one is opened
+        ByteBuffer head = ByteBuffer.allocate(64);
+        channel.read(head);
+        assertThat(new String(head.array(), 0, head.position(), StandardCharsets.US_ASCII)).startsWith("HTTP/1.1 200");
+        return channel;
+    }
+
+    private void closeAll() {
+        for (SocketChannel channel : connections) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+        connections.clear();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 30s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package demo.todolist.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 10 per IP, 2 per username, 3 availability checks per IP
+        filter = new AuthRateLimitFilter(meterRegistry, true, 10, 1, 2, 1, 3, 1, 4, 1_000);
+    }
+
+    @Test
+    void login_SameUsernameOverLimit_Returns429WithRetryAfter() throws Exception {
+        assertEquals(200, login("10.0.0.1", "john").getStatus());
+        assertEquals(200, login("10.0.0.2", "JOHN").getStatus());
+
+        MockHttpServletResponse res = login("10.0.0.3", "john");
+
+        assertEquals(429, res.getStatus());
+        assertNotNull(res.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("auth.rate_limit.rejected").tag("key", "username").counter().count());
+    }
+
+    @Test
+    void login_SameIpOverLimit_Returns429() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, login("10.0.0.1", "user" + i).getStatus());
+        }
+
+        assertEquals(429, login("10.0.0.1", "another").getStatus());
+        assertEquals(1, meterRegistry.get("auth.rate_limit.rejected").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    void login_BodyIsStillReadableDownstream() throws Exception {
+        MockHttpServletRequest req = loginRequest("10.0.0.1", "john");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(req, new MockHttpServletResponse(), chain);
+
+        String forwarded = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(forwarded.contains("\"username\":\"john\""));
+    }
+
+    @Test
+    void availability_SameIpOverLimit_Returns429() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, availability("10.0.0.1", "user" + i).getStatus());
+        }
+
+        assertEquals(429, availability("10.0.0.1", "another").getStatus());
+        assertEquals(200, availability("10.0.0.2", "another").getStatus());
+        assertEquals(1, meterRegistry.get("auth.rate_limit.rejected").tag("key", "availability_ip").counter().count());
+        // the availability bucket is separate from the login one
+        assertEquals(200, login("10.0.0.1", "john").getStatus());
+    }
+
+    @Test
+    void otherEndpoints_AreNotLimited() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/tasks");
+            req.setServletPath("/api/tasks");
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            filter.doFilter(req, res, new MockFilterChain());
+            assertEquals(200, res.getStatus());
+        }
+    }
+
+    @Test
+    void extractUsername_IgnoresNestedAndMalformedBodies() {
+        assertEquals("john", AuthRateLimitFilter.extractUsername(
+                "{\"meta\":{\"username\":\"x\"},\"username\":\"john\"}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(AuthRateLimitFilter.extractUsername("{\"username\":".getBytes(StandardCharsets.UTF_8)));
+        assertNull(AuthRateLimitFilter.extractUsername("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private MockHttpServletResponse login(String ip, String username) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, username), res, new MockFilterChain());
+        return res;
+    }
+
+    private MockHttpServletRequest loginRequest(String ip, String username) {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login");
+        req.setServletPath("/api/auth/login");
+        req.setRemoteAddr(ip);
+        req.setContentType("application/json");
+        req.setContent(("{\"username\":\"" + username + "\",\"password\":\"Secr3t!Passw0rd\"}").getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    private MockHttpServletResponse availability(String ip, String username) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/auth/availability");
+        req.setServletPath("/api/auth/availability");
+        req.setRemoteAddr(ip);
+        req.setParameter("username", username);
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(req, res, new MockFilterChain());
+        return res;
+    }
+}
@@ -0,0 +1,37 @@
+package demo.todolist.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptCostCalibratorTest {
+
+    @Test
+    void calibrate_SingleCostRange_ReturnsThatCost() {
+        BcryptCostCalibrator.Result result = BcryptCostCalibrator.calibrate(Duration.ofSeconds(1), 4, 4);
+
+        assertEquals(4, result.cost());
+        assertTrue(result.hashTime().toNanos() > 0);
+    }
+
+    @Test
+    void calibrate_GenerousTarget_ClimbsToMaxCost() {
+        BcryptCostCalibrator.Result result = BcryptCostCalibrator.calibrate(Duration.ofMinutes(1), 4, 6);
+
+        assertEquals(6, result.cost());
+    }
+
+    @Test
+    void calibrate_UnreachableTarget_StaysAtMinCost() {
+        BcryptCostCalibrator.Result result = BcryptCostCalibrator.calibrate(Duration.ZERO, 4, 8);
+
+        assertEquals(4, result.cost());
+    }
+
+    @Test
+    void calibrate_InvalidRange_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> BcryptCostCalibrator.calibrate(Duration.ofMillis(100), 8, 5));
+    }
+}
@@ -0,0 +1,84 @@
+package demo.todolist.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "TestJwtSecretKeyForIntegrationTests1234567890123456");
+        ReflectionTestUtils.setField(jwtUtil, "accessTtlMillis", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 100);
+        jwtUtil.init();
+    }
+
+    @Test
+    void parseAccessToken_ReturnsClaims() {
+        String token = jwtUtil.generateAccessToken(UUID.randomUUID(), "john", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        AccessTokenClaims claims = jwtUtil.parseAccessToken(token).orElseThrow();
+
+        assertEquals("john", claims.username());
+        assertEquals(List.of("ROLE_USER"), claims.roles());
+        // second call is served from the verified-token cache
+        assertSame(claims, jwtUtil.parseAccessToken(token).orElseThrow());
+    }
+
+    @Test
+    void parseAccessToken_CarriesUserId() {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateAccessToken(userId, "john", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        AccessTokenClaims claims = jwtUtil.parseAccessToken(token).orElseThrow();
+
+        assertEquals(userId, claims.userId());
+        assertTrue(AuthenticatedUser.of(claims).isAdmin());
+    }
+
+    @Test
+    void parseAccessToken_RejectsTamperedTokenEvenAfterCaching() {
+        String token = jwtUtil.generateAccessToken(UUID.randomUUID(), "john", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        jwtUtil.parseAccessToken(token);
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "x." + parts[2];
+
+        assertEquals(Optional.empty(), jwtUtil.parseAccessToken(forged));
+    }
+
+    @Test
+    void parseAccessToken_CachesNewTokenWhenCacheIsFull() {
+        // given: a two-entry cache already holding two live tokens
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 2);
+        jwtUtil.init();
+        jwtUtil.parseAccessToken(jwtUtil.generateAccessToken(UUID.randomUUID(), "first", List.of()));
+        jwtUtil.parseAccessToken(jwtUtil.generateAccessToken(UUID.randomUUID(), "second", List.of()));
+
+        // when
+        String token = jwtUtil.generateAccessToken(UUID.randomUUID(), "third", List.of());
+        AccessTokenClaims claims = jwtUtil.parseAccessToken(token).orElseThrow();
+
+        // then
+        assertSame(claims, jwtUtil.parseAccessToken(token).orElseThrow());
+    }
+
+    @Test
+    void parseAccessToken_RejectsExpiredToken() {
+        ReflectionTestUtils.setField(jwtUtil, "accessTtlMillis", -1_000L);
+        String token = jwtUtil.generateAccessToken(UUID.randomUUID(), "john", List.of());
+
+        assertTrue(jwtUtil.parseAccessToken(token).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package demo.todolist.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000L);
+
+    @Test
+    void tryAcquire_AllowsBurstUpToCapacity_ThenReturnsWait() {
+        StripedRateLimiter limiter = new StripedRateLimiter(3, 1.0, 4, 1_000, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1));
+        // other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void tryAcquire_RefillsOverTime() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 2.0, 4, 1_000, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("john"));
+        assertTrue(limiter.tryAcquire("john") > 0);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertEquals(0, limiter.tryAcquire("john"));
+    }
+
+    @Test
+    void evictIdle_DropsOnlyFullyRefilledBuckets() {
+        StripedRateLimiter limiter = new StripedRateLimiter(2, 1.0, 4, 1_000, clock::get);
+        limiter.tryAcquire("old");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.tryAcquire("fresh");
+
+        limiter.evictIdle();
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void tryAcquire_GrowsPastInitialTable() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1.0, 1, 10_000, clock::get);
+
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(0, limiter.tryAcquire("user" + i));
+        }
+        assertEquals(5_000, limiter.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(limiter.tryAcquire("user" + i) > 0, "bucket for user" + i + " was lost");
+        }
+    }
+
+    @Test
+    void tryAcquire_StripeFullOfActiveBuckets_EvictsLeastRecentlyRefilled() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1.0, 1, 8, clock::get);
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire("k" + i);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // a new key is metered, not let through for free
+        assertEquals(0, limiter.tryAcquire("new"));
+        assertTrue(limiter.tryAcquire("new") > 0);
+        assertEquals(1, limiter.evictionCount());
+        assertEquals(8, limiter.size());
+
+        // the oldest bucket made room; every other bucket is still tracked
+        for (int i = 1; i < 8; i++) {
+            assertTrue(limiter.tryAcquire("k" + i) > 0, "bucket for k" + i + " was lost");
+        }
+    }
+
+    @Test
+    void tryAcquire_FloodOfNewKeys_StaysAtTheLimit() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1.0, 1, 8, clock::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(0, limiter.tryAcquire("flood" + i));
+        }
+
+        assertEquals(8, limiter.size());
+        assertEquals(992, limiter.evictionCount());
+        // the most recent keys are the ones still metered
+        assertTrue(limiter.tryAcquire("flood999") > 0);
+    }
+}
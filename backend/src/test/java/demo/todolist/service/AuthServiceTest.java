@@ -63,14 +63,15 @@ class AuthServiceTest {
         Collection<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
         when(authentication.getAuthorities()).thenReturn((Collection) authorities);
 
-        when(jwtUtil.generateAccessToken(eq("john"), anyCollection()))
-                .thenReturn("access123");
-
         User user = new User();
         user.setId(UUID.randomUUID());
         user.setUsername("john");
         user.setRole(UserRole.USER);
-        when(userService.findUser("john")).thenReturn(user);
+        when(userService.findUser("john")).thenReturn(CachedUser.of(user));
+        when(userService.getUserReference(user.getId())).thenReturn(user);
+
+        when(jwtUtil.generateAccessToken(eq(user.getId()), eq("john"), anyCollection()))
+                .thenReturn("access123");
 
         RefreshToken refresh = RefreshToken.builder()
                 .id(UUID.randomUUID())
@@ -122,7 +123,7 @@ class AuthServiceTest {
                 .revoked(false)
                 .build();
         when(refreshTokenService.findActive("refresh123")).thenReturn(stored);
-        when(jwtUtil.generateAccessToken(eq("john"), anyCollection()))
+        when(jwtUtil.generateAccessToken(eq(user.getId()), eq("john"), anyCollection()))
                 .thenReturn("newAccess123");
 
         // when
@@ -131,6 +132,7 @@ class AuthServiceTest {
         // then
         assertEquals("newAccess123", resp.getAccessToken());
         assertEquals("refresh123", resp.getRefreshToken());
+        verify(refreshTokenService).markUsed(stored);
     }
 
     @Test
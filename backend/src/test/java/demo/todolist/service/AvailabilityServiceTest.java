@@ -0,0 +1,106 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new AvailabilityService(userRepository, transactionManager, meterRegistry, 1_000, 0.01, 0.1);
+    }
+
+    @Test
+    void beforeLoad_EveryCheckGoesToDatabase() {
+        when(userRepository.existsByUsername("john")).thenReturn(true);
+
+        assertFalse(service.isUsernameAvailable("john"));
+        verify(userRepository).existsByUsername("john");
+    }
+
+    @Test
+    void afterLoad_UnknownNameIsAnsweredFromMemory() {
+        load(identity("john", "john@example.com"));
+
+        assertTrue(service.isUsernameAvailable("alice"));
+        assertTrue(service.isEmailAvailable("alice@example.com"));
+
+        verify(userRepository, never()).existsByUsername(any());
+        verify(userRepository, never()).existsByEmail(any());
+        assertEquals(2, meterRegistry.get("users.availability.checks").tag("source", "memory").counter().count());
+    }
+
+    @Test
+    void afterLoad_PossibleMatchIsConfirmedInDatabase() {
+        load(identity("john", "john@example.com"));
+        when(userRepository.existsByUsername("JOHN")).thenReturn(true);
+
+        assertFalse(service.isUsernameAvailable("JOHN"));
+        verify(userRepository).existsByUsername("JOHN");
+    }
+
+    @Test
+    void recordRegistered_IsVisibleWithoutRebuild() {
+        load();
+        service.recordRegistered("fresh", "fresh@example.com");
+        when(userRepository.existsByUsername("fresh")).thenReturn(true);
+
+        assertFalse(service.isUsernameAvailable("fresh"));
+    }
+
+    @Test
+    void rebuildIfStale_RebuildsOnlyAfterEnoughDeletes() {
+        load(identity("john", "john@example.com"));
+
+        service.rebuildIfStale();
+        verify(userRepository, times(1)).streamIdentities();
+
+        service.recordDeleted();
+        service.recordDeleted();
+        when(userRepository.streamIdentities()).thenReturn(Stream.empty());
+        service.rebuildIfStale();
+        verify(userRepository, times(2)).streamIdentities();
+    }
+
+    private void load(UserRepository.Identity... identities) {
+        when(userRepository.count()).thenReturn((long) identities.length);
+        when(userRepository.streamIdentities()).thenReturn(Stream.of(identities));
+        service.load();
+    }
+
+    private static UserRepository.Identity identity(String username, String email) {
+        return new UserRepository.Identity() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
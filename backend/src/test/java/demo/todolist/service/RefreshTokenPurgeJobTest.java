@@ -0,0 +1,87 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenPurgeJobTest {
+
+    private static final int CHUNK = 100;
+
+    @Mock
+    private RefreshTokenRepository repo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenPurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new RefreshTokenPurgeJob(repo, meterRegistry, CHUNK);
+    }
+
+    @Test
+    void purge_LoopsUntilChunkIsNotFull() {
+        // given
+        when(repo.deleteRevokedChunk(CHUNK)).thenReturn(CHUNK, CHUNK, 7);
+        when(repo.deleteExpiredChunk(any(Instant.class), eq(CHUNK))).thenReturn(3);
+
+        // when
+        job.purge();
+
+        // then
+        verify(repo, times(3)).deleteRevokedChunk(CHUNK);
+        verify(repo, times(1)).deleteExpiredChunk(any(Instant.class), eq(CHUNK));
+        assertEquals(207, meterRegistry.get("refresh_tokens.purged").tag("reason", "revoked").counter().count());
+        assertEquals(3, meterRegistry.get("refresh_tokens.purged").tag("reason", "expired").counter().count());
+        assertEquals(1, meterRegistry.get("refresh_tokens.purge").timer().count());
+    }
+
+    @Test
+    void purge_NothingToDelete_RunsOneStatementEach() {
+        // given
+        when(repo.deleteRevokedChunk(CHUNK)).thenReturn(0);
+        when(repo.deleteExpiredChunk(any(Instant.class), eq(CHUNK))).thenReturn(0);
+
+        // when
+        job.purge();
+
+        // then
+        verify(repo).deleteRevokedChunk(CHUNK);
+        verify(repo).deleteExpiredChunk(any(Instant.class), eq(CHUNK));
+        assertEquals(0, meterRegistry.get("refresh_tokens.purged").tag("reason", "revoked").counter().count());
+    }
+
+    @Test
+    void constructor_RejectsChunkSizeBelowOne() {
+        // a chunk size of 0 would count every chunk as full and never stop
+        assertThrows(IllegalArgumentException.class, () -> new RefreshTokenPurgeJob(repo, meterRegistry, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RefreshTokenPurgeJob(repo, meterRegistry, -1));
+    }
+
+    @Test
+    void purge_ChunkSizeOfOne_StopsOnFirstEmptyChunk() {
+        // given
+        job = new RefreshTokenPurgeJob(repo, new SimpleMeterRegistry(), 1);
+        when(repo.deleteRevokedChunk(1)).thenReturn(1, 1, 0);
+        when(repo.deleteExpiredChunk(any(Instant.class), eq(1))).thenReturn(0);
+
+        // when
+        job.purge();
+
+        // then
+        verify(repo, times(3)).deleteRevokedChunk(1);
+        verify(repo, times(1)).deleteExpiredChunk(any(Instant.class), eq(1));
+    }
+}
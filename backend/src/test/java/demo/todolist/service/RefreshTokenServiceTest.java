@@ -8,7 +8,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
 import java.util.List;
@@ -74,16 +77,52 @@ class RefreshTokenServiceTest {
     @Test
     void revokeAllForUser_Success() {
         UUID ownerId = UUID.randomUUID();
-        RefreshToken t1 = buildToken(false, Instant.now().plusSeconds(60));
-        RefreshToken t2 = buildToken(false, Instant.now().plusSeconds(120));
-        when(repo.findAllByOwnerIdAndRevokedFalse(ownerId)).thenReturn(List.of(t1, t2));
-        when(repo.saveAll(anyList())).thenReturn(List.of(t1, t2));
+        when(repo.revokeAllByOwnerId(ownerId)).thenReturn(2);
 
         service.revokeAllForUser(ownerId);
 
-        assertTrue(t1.isRevoked());
-        assertTrue(t2.isRevoked());
-        verify(repo).saveAll(anyList());
+        verify(repo).revokeAllByOwnerId(ownerId);
+        verify(repo, never()).saveAll(anyList());
+    }
+
+
+    @Test
+    void markUsed_UpdatesLastUsedAt() {
+        RefreshToken rt = buildToken(false, Instant.now().plusSeconds(60));
+        when(repo.save(rt)).thenReturn(rt);
+
+        service.markUsed(rt);
+
+        assertNotNull(rt.getLastUsedAt());
+        verify(repo).save(rt);
+    }
+
+
+    @Test
+    void createToken_UnderCap_RevokesNothing() {
+        ReflectionTestUtils.setField(service, "maxActivePerUser", 3);
+        User user = buildUser();
+        when(repo.save(any(RefreshToken.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.findActiveByRecency(eq(user.getId()), any(Pageable.class))).thenReturn(List.of());
+
+        service.createTokenForUser(user, 3600L);
+
+        verify(repo, never()).revokeUsedBefore(any(), any(), any());
+    }
+
+    @Test
+    void createToken_OverCap_RevokesOlderThanCutoffInOneUpdate() {
+        ReflectionTestUtils.setField(service, "maxActivePerUser", 3);
+        User user = buildUser();
+        RefreshToken oldestKept = buildToken(false, Instant.now().plusSeconds(60));
+        oldestKept.setLastUsedAt(Instant.now().minusSeconds(30));
+        when(repo.save(any(RefreshToken.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.findActiveByRecency(eq(user.getId()), any(Pageable.class))).thenReturn(List.of(oldestKept));
+
+        service.createTokenForUser(user, 3600L);
+
+        verify(repo).findActiveByRecency(user.getId(), PageRequest.of(2, 1));
+        verify(repo).revokeUsedBefore(user.getId(), oldestKept.getLastUsedAt(), oldestKept.getId());
     }
 
 
@@ -0,0 +1,155 @@
+package demo.todolist.service;
+
+import demo.todolist.service.TaskEventBus.OverflowPolicy;
+import demo.todolist.web.dto.TaskChangeResponse;
+import demo.todolist.web.dto.TaskChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBusTest {
+
+    private static final int BUFFER = 4;
+
+    private final List<Runnable> stalled = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TaskEventBus bus(Executor executor, OverflowPolicy policy, int maxPerUser) {
+        return new TaskEventBus(executor, meterRegistry, BUFFER, policy, maxPerUser, Duration.ofMinutes(1));
+    }
+
+    private static TaskChangedEvent created(UUID ownerId) {
+        UUID taskId = UUID.randomUUID();
+        return new TaskChangedEvent(ownerId, new TaskChangeResponse(TaskChangeType.CREATED, taskId, null));
+    }
+
+    @Test
+    void publish_ReachesOnlyTheOwnersSubscribers() {
+        // given
+        TaskEventBus bus = bus(Runnable::run, OverflowPolicy.DISCONNECT, 8);
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        RecordingEmitter alicePhone = new RecordingEmitter();
+        RecordingEmitter aliceLaptop = new RecordingEmitter();
+        RecordingEmitter bobPhone = new RecordingEmitter();
+        bus.subscribe(alice, alicePhone);
+        bus.subscribe(alice, aliceLaptop);
+        bus.subscribe(bob, bobPhone);
+
+        // when
+        bus.onTaskChanged(created(alice));
+
+        // then: "connected" comment + the event
+        assertEquals(2, alicePhone.sent);
+        assertEquals(2, aliceLaptop.sent);
+        assertEquals(1, bobPhone.sent);
+    }
+
+    @Test
+    void slowSubscriber_IsDisconnected_WhenBufferOverflows() {
+        // given: nothing drains, so the queue only fills
+        TaskEventBus bus = bus(stalled::add, OverflowPolicy.DISCONNECT, 8);
+        UUID owner = UUID.randomUUID();
+        RecordingEmitter slow = new RecordingEmitter();
+        bus.subscribe(owner, slow);
+
+        // when: "connected" + BUFFER events is one more than fits
+        for (int i = 0; i < BUFFER; i++) {
+            bus.onTaskChanged(created(owner));
+        }
+
+        // then
+        assertTrue(slow.completed);
+        assertEquals(0, bus.subscriberCount());
+        assertEquals(1, stalled.size(), "one drain task per subscriber, however many messages are queued");
+        assertEquals(1, meterRegistry.get("tasks.stream.dropped").tag("reason", "disconnect").counter().count());
+    }
+
+    @Test
+    void slowSubscriber_LosesOldest_UnderDropOldest() {
+        // given
+        TaskEventBus bus = bus(stalled::add, OverflowPolicy.DROP_OLDEST, 8);
+        UUID owner = UUID.randomUUID();
+        RecordingEmitter slow = new RecordingEmitter();
+        bus.subscribe(owner, slow);
+
+        // when
+        for (int i = 0; i < BUFFER + 3; i++) {
+            bus.onTaskChanged(created(owner));
+        }
+        stalled.forEach(Runnable::run);
+
+        // then
+        assertFalse(slow.completed);
+        assertEquals(1, bus.subscriberCount());
+        assertEquals(BUFFER, slow.sent);
+        assertEquals(4, meterRegistry.get("tasks.stream.dropped").tag("reason", "drop-oldest").counter().count());
+    }
+
+    @Test
+    void subscribe_OverPerUserLimit_ClosesOldest() {
+        // given
+        TaskEventBus bus = bus(Runnable::run, OverflowPolicy.DISCONNECT, 2);
+        UUID owner = UUID.randomUUID();
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        RecordingEmitter third = new RecordingEmitter();
+
+        // when
+        bus.subscribe(owner, first);
+        bus.subscribe(owner, second);
+        bus.subscribe(owner, third);
+
+        // then
+        assertTrue(first.completed);
+        assertFalse(second.completed);
+        assertFalse(third.completed);
+        assertEquals(2, bus.subscriberCount());
+    }
+
+    @Test
+    void failedWrite_RemovesSubscriber() {
+        // given
+        TaskEventBus bus = bus(Runnable::run, OverflowPolicy.DISCONNECT, 8);
+        UUID owner = UUID.randomUUID();
+        RecordingEmitter broken = new RecordingEmitter();
+        bus.subscribe(owner, broken);
+        broken.failWrites = true;
+
+        // when
+        bus.onTaskChanged(created(owner));
+
+        // then
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    /** Counts frames instead of writing them; no servlet response behind it. */
+    static final class RecordingEmitter extends SseEmitter {
+
+        int sent;
+        boolean completed;
+        boolean failWrites;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failWrites) {
+                throw new IOException("Broken pipe");
+            }
+            sent++;
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
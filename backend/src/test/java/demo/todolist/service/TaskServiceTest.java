@@ -1,19 +1,36 @@
 package demo.todolist.service;
 
 import demo.todolist.entity.Task;
+import demo.todolist.entity.TaskTombstone;
 import demo.todolist.entity.User;
 import demo.todolist.entity.UserRole;
+import demo.todolist.exception.InvalidQueryParameterException;
+import demo.todolist.exception.PreconditionFailedException;
 import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.TaskTombstoneRepository;
+import demo.todolist.security.AuthenticatedUser;
+import demo.todolist.web.dto.TaskBatchOperation;
+import demo.todolist.web.dto.TaskBatchOperationType;
+import demo.todolist.web.dto.TaskBatchResult;
+import demo.todolist.web.dto.TaskChangeResponse;
+import demo.todolist.web.dto.TaskChangeType;
+import demo.todolist.web.dto.TaskPatchRequest;
 import demo.todolist.web.dto.TaskRequest;
 import demo.todolist.web.dto.TaskResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,9 +44,18 @@ class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskTombstoneRepository tombstoneRepository;
+
     @Mock
     private UserService userService;
 
+    @Mock
+    private TaskVersionService taskVersionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private TaskService taskService;
 
@@ -38,7 +64,8 @@ class TaskServiceTest {
     void createTask_Success() {
         // given
         User owner = buildUser(UserRole.USER);
-        when(userService.getCurrentUser()).thenReturn(owner);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(userService.getUserReference(owner.getId())).thenReturn(owner);
 
         TaskRequest request = new TaskRequest("Title", "Desc", true);
 
@@ -54,7 +81,9 @@ class TaskServiceTest {
         // then
         assertNotNull(response);
         assertEquals(request.title(), response.title());
+        assertEquals(owner.getUsername(), response.ownerUsername());
         verify(taskRepository).save(any(Task.class));
+        verify(userService, never()).getCurrentUser();
     }
 
 
@@ -64,16 +93,47 @@ class TaskServiceTest {
         User owner = buildUser(UserRole.USER);
         Task task1 = buildTask(owner, "Task1");
         Task task2 = buildTask(owner, "Task2");
-        owner.getTasks().addAll(List.of(task1, task2));
-        when(userService.getCurrentUser()).thenReturn(owner);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.findFiltered(owner.getId(), null, null, null,
+                Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(List.of(task1, task2));
 
         // when
-        List<TaskResponse> responses = taskService.getTasksForCurrentUser();
+        List<TaskResponse> responses = taskService.getTasksForCurrentUser(null, null, null, "asc");
 
         // then
         assertEquals(2, responses.size());
     }
 
+    @Test
+    void getTasksForCurrentUser_FiltersAreForwarded() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = from.plusMonths(1);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.findFiltered(owner.getId(), true, from, to,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"))))
+                .thenReturn(List.of());
+
+        // when
+        List<TaskResponse> responses = taskService.getTasksForCurrentUser(true, from, to, "desc");
+
+        // then
+        assertTrue(responses.isEmpty());
+    }
+
+    @Test
+    void getTasksForCurrentUser_InvalidInput_Throws() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(InvalidQueryParameterException.class,
+                () -> taskService.getTasksForCurrentUser(null, null, null, "sideways"));
+        assertThrows(InvalidQueryParameterException.class,
+                () -> taskService.getTasksForCurrentUser(null, now, now.minusDays(1), "asc"));
+        verifyNoInteractions(taskRepository);
+    }
+
 
     @Test
     void getTaskById_AccessDenied() {
@@ -82,8 +142,9 @@ class TaskServiceTest {
         User currentUser = buildUser(UserRole.USER);
 
         Task task = buildTask(otherUser, "OtherTask");
-        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
-        when(userService.getCurrentUser()).thenReturn(currentUser);
+        when(taskRepository.findByIdAndOwnerId(task.getId(), currentUser.getId())).thenReturn(Optional.empty());
+        when(taskRepository.existsById(task.getId())).thenReturn(true);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(currentUser));
 
         // then
         assertThrows(AccessDeniedException.class, () -> taskService.getTaskById(task.getId()));
@@ -95,9 +156,9 @@ class TaskServiceTest {
         // given
         User owner = buildUser(UserRole.USER);
         Task task = buildTask(owner, "OldTitle");
-        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
-        when(taskRepository.save(task)).thenReturn(task);
-        when(userService.getCurrentUser()).thenReturn(owner);
+        when(taskRepository.findByIdAndOwnerId(task.getId(), owner.getId())).thenReturn(Optional.of(task));
+        when(taskRepository.saveAndFlush(task)).thenReturn(task);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
 
         TaskRequest request = new TaskRequest("NewTitle", "NewDesc", false);
 
@@ -106,7 +167,7 @@ class TaskServiceTest {
 
         // then
         assertEquals("NewTitle", response.title());
-        verify(taskRepository).save(task);
+        verify(taskRepository).saveAndFlush(task);
     }
 
 
@@ -115,14 +176,244 @@ class TaskServiceTest {
         // given
         User owner = buildUser(UserRole.USER);
         Task task = buildTask(owner, "TaskToDelete");
-        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
-        when(userService.getCurrentUser()).thenReturn(owner);
+        when(taskRepository.deleteByIdAndOwnerId(task.getId(), owner.getId())).thenReturn(1);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskVersionService.bumpTaskVersion(owner.getId())).thenReturn(7L);
 
         // when
         taskService.deleteTask(task.getId());
 
         // then
-        verify(taskRepository).delete(task);
+        verify(taskRepository).deleteByIdAndOwnerId(task.getId(), owner.getId());
+        verify(taskRepository, never()).findById(any());
+        ArgumentCaptor<TaskTombstone> tombstone = ArgumentCaptor.forClass(TaskTombstone.class);
+        verify(tombstoneRepository).save(tombstone.capture());
+        assertEquals(task.getId(), tombstone.getValue().getTaskId());
+        assertEquals(owner.getId(), tombstone.getValue().getOwnerId());
+        assertEquals(7L, tombstone.getValue().getChangeSeq());
+        verify(eventPublisher).publishEvent(new TaskChangedEvent(owner.getId(),
+                new TaskChangeResponse(TaskChangeType.DELETED, task.getId(), null)));
+    }
+
+
+    @Test
+    void deleteTask_Missing() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        UUID missing = UUID.randomUUID();
+        when(taskRepository.deleteByIdAndOwnerId(missing, owner.getId())).thenReturn(0);
+        when(taskRepository.existsById(missing)).thenReturn(false);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+
+        // then
+        assertThrows(EntityNotFoundException.class, () -> taskService.deleteTask(missing));
+        verifyNoInteractions(eventPublisher, tombstoneRepository);
+    }
+
+
+    @Test
+    void getTaskById_AdminSeesForeignTask() {
+        // given
+        User admin = buildUser(UserRole.ADMIN);
+        Task task = buildTask(buildUser(UserRole.USER), "Foreign");
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(admin));
+
+        // when
+        TaskResponse response = taskService.getTaskById(task.getId());
+
+        // then
+        assertEquals(task.getOwner().getUsername(), response.ownerUsername());
+    }
+
+
+    @Test
+    void toggleTaskCompletion_CountsOnlyWhenConditionalUpdateWins() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        Task first = buildTask(owner, "First");
+        Task second = buildTask(owner, "Second");
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.toggleActive(eq(first.getId()), eq(owner.getId()), anyLong(), any(LocalDateTime.class))).thenReturn(1);
+        when(taskRepository.toggleActive(eq(second.getId()), eq(owner.getId()), anyLong(), any(LocalDateTime.class))).thenReturn(1);
+        when(taskRepository.markCountedAsDone(first.getId())).thenReturn(1);
+        when(taskRepository.markCountedAsDone(second.getId())).thenReturn(0);
+        when(taskRepository.findByIdAndOwnerId(first.getId(), owner.getId())).thenReturn(Optional.of(first));
+        when(taskRepository.findByIdAndOwnerId(second.getId(), owner.getId())).thenReturn(Optional.of(second));
+
+        // when
+        taskService.toggleTaskCompletion(first.getId());
+        taskService.toggleTaskCompletion(second.getId());
+
+        // then
+        verify(userService, times(1)).incrementTasksDone(owner.getId());
+        verify(taskRepository, never()).save(any());
+    }
+
+
+    @Test
+    void toggleTaskCompletion_MissingTask_ThrowsWithoutCounting() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        UUID missing = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.toggleActive(eq(missing), eq(owner.getId()), anyLong(), any(LocalDateTime.class))).thenReturn(0);
+        when(taskRepository.existsById(missing)).thenReturn(false);
+
+        // then
+        assertThrows(EntityNotFoundException.class, () -> taskService.toggleTaskCompletion(missing));
+        verify(taskRepository, never()).markCountedAsDone(any());
+        verify(userService, never()).incrementTasksDone(any());
+    }
+
+
+    @Test
+    void applyBatch_ReportsEachOperation() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        User stranger = buildUser(UserRole.USER);
+        Task own = buildTask(owner, "Own");
+        Task foreign = buildTask(stranger, "Foreign");
+        UUID missing = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.findAllById(anySet())).thenReturn(List.of(own, foreign));
+        when(userService.getUserReference(owner.getId())).thenReturn(owner);
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> {
+            Task t = invocation.getArgument(0);
+            t.setId(UUID.randomUUID());
+            return t;
+        });
+
+        List<TaskBatchOperation> operations = List.of(
+                new TaskBatchOperation(TaskBatchOperationType.CREATE, null, new TaskRequest("New", null, true)),
+                new TaskBatchOperation(TaskBatchOperationType.UPDATE, own.getId(), new TaskRequest("Renamed", null, true)),
+                new TaskBatchOperation(TaskBatchOperationType.DELETE, foreign.getId(), null),
+                new TaskBatchOperation(TaskBatchOperationType.DELETE, missing, null));
+
+        // when
+        List<TaskBatchResult> results = taskService.applyBatch(operations);
+
+        // then
+        assertEquals(List.of(201, 200, 403, 404), results.stream().map(TaskBatchResult::status).toList());
+        assertEquals("Renamed", own.getTitle());
+        verify(taskRepository, never()).delete(any(Task.class));
+        verify(taskVersionService).bumpTaskVersion(owner.getId());
+        verify(taskVersionService, never()).bumpTaskVersion(stranger.getId());
+    }
+
+
+    @Test
+    void getTaskEtag_UserTagIsOwnTaskVersion_NullForOthers() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        UUID own = UUID.randomUUID();
+        UUID foreign = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.findVersionByIdAndOwnerId(own, owner.getId())).thenReturn(Optional.of(7L));
+        when(taskRepository.findVersionByIdAndOwnerId(foreign, owner.getId())).thenReturn(Optional.empty());
+
+        // then
+        assertEquals("\"7\"", taskService.getTaskEtag(own));
+        assertNull(taskService.getTaskEtag(foreign));
+        verify(taskRepository, never()).findById(any());
+    }
+
+
+    @Test
+    void getTaskEtag_AdminUsesAnyTaskVersion_NullWhenMissing() {
+        // given
+        User admin = buildUser(UserRole.ADMIN);
+        UUID foreign = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(admin));
+        when(taskRepository.findVersionById(foreign)).thenReturn(Optional.of(3L));
+        when(taskRepository.findVersionById(missing)).thenReturn(Optional.empty());
+
+        // then
+        assertEquals("\"3\"", taskService.getTaskEtag(foreign));
+        assertNull(taskService.getTaskEtag(missing));
+    }
+
+
+    @Test
+    void patchTask_WritesConditionallyThenReadsBack() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        Task task = buildTask(owner, "Patched");
+        task.setVersion(3);
+        TaskPatchRequest request = new TaskPatchRequest("Patched", null, null);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskVersionService.bumpTaskVersion(owner.getId())).thenReturn(11L);
+        when(taskRepository.patchIfVersion(eq(task.getId()), eq(owner.getId()), eq(2L),
+                eq("Patched"), isNull(), isNull(), eq(11L), any(LocalDateTime.class))).thenReturn(1);
+        when(taskRepository.findByIdAndOwnerId(task.getId(), owner.getId())).thenReturn(Optional.of(task));
+
+        // when
+        TaskResponse response = taskService.patchTask(task.getId(), request, 2L);
+
+        // then
+        assertEquals(3L, response.version());
+        InOrder order = inOrder(userService, taskRepository);
+        order.verify(taskVersionService).bumpTaskVersion(owner.getId());
+        order.verify(taskRepository).patchIfVersion(any(), any(), anyLong(), any(), any(), any(), anyLong(), any());
+        order.verify(taskRepository).findByIdAndOwnerId(task.getId(), owner.getId());
+        verify(taskRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new TaskChangedEvent(owner.getId(),
+                new TaskChangeResponse(TaskChangeType.UPDATED, task.getId(), response)));
+    }
+
+
+    @Test
+    void patchTask_StaleVersion_FailsPrecondition() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        UUID taskId = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.patchIfVersion(eq(taskId), eq(owner.getId()), eq(2L),
+                any(), any(), any(), anyLong(), any())).thenReturn(0);
+        when(taskRepository.findVersionByIdAndOwnerId(taskId, owner.getId())).thenReturn(Optional.of(4L));
+
+        // then
+        assertThrows(PreconditionFailedException.class,
+                () -> taskService.patchTask(taskId, new TaskPatchRequest(null, null, false), 2L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+
+    @Test
+    void patchTask_Missing_NotFound() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        UUID missing = UUID.randomUUID();
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskRepository.patchIfVersion(eq(missing), eq(owner.getId()), eq(0L),
+                any(), any(), any(), anyLong(), any())).thenReturn(0);
+        when(taskRepository.findVersionByIdAndOwnerId(missing, owner.getId())).thenReturn(Optional.empty());
+        when(taskRepository.existsById(missing)).thenReturn(false);
+
+        // then
+        assertThrows(EntityNotFoundException.class,
+                () -> taskService.patchTask(missing, new TaskPatchRequest("x", null, null), 0L));
+    }
+
+
+    @Test
+    void getTasksEtag_DependsOnVersionAndFilters() {
+        // given
+        User owner = buildUser(UserRole.USER);
+        when(userService.getCurrentPrincipal()).thenReturn(AuthenticatedUser.of(owner));
+        when(taskVersionService.getTaskVersion(owner.getId())).thenReturn(5L);
+
+        // when
+        String all = taskService.getTasksEtag(null, null, null, "asc");
+        String active = taskService.getTasksEtag(true, null, null, "asc");
+        String desc = taskService.getTasksEtag(null, null, null, "desc");
+
+        // then
+        assertEquals(all, taskService.getTasksEtag(null, null, null, "ASC"));
+        assertNotEquals(all, active);
+        assertNotEquals(all, desc);
+        verifyNoInteractions(taskRepository);
     }
 
 
@@ -0,0 +1,47 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.TaskTombstoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskTombstonePurgeJobTest {
+
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    @Mock
+    private TaskTombstoneRepository repo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void purge_LoopsUntilChunkIsNotFull() {
+        // given
+        TaskTombstonePurgeJob job = new TaskTombstonePurgeJob(repo, meterRegistry, RETENTION, 100);
+        when(repo.deleteOlderThanChunk(any(Instant.class), eq(100))).thenReturn(100, 42);
+
+        // when
+        job.purge();
+
+        // then
+        verify(repo, times(2)).deleteOlderThanChunk(any(Instant.class), eq(100));
+        assertEquals(142, meterRegistry.get("tasks.tombstones.purged").counter().count());
+    }
+
+    @Test
+    void constructor_RejectsChunkSizeBelowOne() {
+        // a chunk size of 0 would count every chunk as full and never stop
+        assertThrows(IllegalArgumentException.class, () -> new TaskTombstonePurgeJob(repo, meterRegistry, RETENTION, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TaskTombstonePurgeJob(repo, meterRegistry, RETENTION, -1));
+    }
+}
@@ -0,0 +1,97 @@
+package demo.todolist.service;
+
+import demo.todolist.entity.User;
+import demo.todolist.entity.UserRole;
+import demo.todolist.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userRepository, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void findByUsername_SecondLookupIsServedFromCache() {
+        User user = buildUser();
+        when(userRepository.findUserByUsername("john")).thenReturn(Optional.of(user));
+
+        CachedUser first = userCache.findByUsername("john").orElseThrow();
+        Optional<CachedUser> cached = userCache.findByUsername("john");
+
+        assertSame(first, cached.orElseThrow());
+        verify(userRepository, times(1)).findUserByUsername("john");
+        assertSame(first, userCache.findById(user.getId()).orElseThrow());
+        verify(userRepository, never()).findUserById(any());
+    }
+
+    @Test
+    void findByUsername_CachesSnapshotNotTheEntity() {
+        // given
+        User user = buildUser();
+        user.setPassword("hash");
+        when(userRepository.findUserByUsername("john")).thenReturn(Optional.of(user));
+        userCache.findByUsername("john");
+
+        // when: the loaded entity is changed afterwards
+        user.setRole(UserRole.ADMIN);
+
+        // then
+        assertEquals(new CachedUser(user.getId(), "john", UserRole.USER, "hash"),
+                userCache.findByUsername("john").orElseThrow());
+    }
+
+    @Test
+    void evictById_ForcesReloadByUsername() {
+        User user = buildUser();
+        when(userRepository.findUserByUsername("john")).thenReturn(Optional.of(user));
+
+        userCache.findByUsername("john");
+        userCache.evictById(user.getId());
+        userCache.findByUsername("john");
+
+        verify(userRepository, times(2)).findUserByUsername("john");
+    }
+
+    @Test
+    void stats_ArePublishedAsMetrics() {
+        when(userRepository.findUserById(any())).thenReturn(Optional.empty());
+
+        userCache.findById(UUID.randomUUID());
+
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", "users.byId")
+                .tag("result", "miss")
+                .functionCounter()
+                .count());
+    }
+
+    private User buildUser() {
+        User u = new User();
+        u.setId(UUID.randomUUID());
+        u.setUsername("john");
+        u.setRole(UserRole.USER);
+        return u;
+    }
+}
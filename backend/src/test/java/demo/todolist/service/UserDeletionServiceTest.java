@@ -0,0 +1,149 @@
+package demo.todolist.service;
+
+import demo.todolist.repository.RefreshTokenRepository;
+import demo.todolist.repository.TaskRepository;
+import demo.todolist.repository.TaskVersionRepository;
+import demo.todolist.repository.UserRepository;
+import demo.todolist.web.dto.UserDeletionStatusResponse;
+import demo.todolist.web.dto.UserDeletionStatusResponse.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDeletionServiceTest {
+
+    private static final int CHUNK = 100;
+    private static final long INLINE_MAX = 250;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskVersionRepository taskVersionRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private UserDeletionService service(Executor executor) {
+        return new UserDeletionService(taskRepository, taskVersionRepository, refreshTokenRepository, userRepository,
+                userCache, availabilityService, executor, new SimpleMeterRegistry(), CHUNK, INLINE_MAX, Duration.ofHours(1));
+    }
+
+    @Test
+    void delete_SmallAccount_RunsInlineInChunks() {
+        // given
+        UUID userId = UUID.randomUUID();
+        when(taskRepository.countByOwnerId(userId)).thenReturn(230L);
+        when(taskRepository.deleteChunkByOwnerId(userId, CHUNK)).thenReturn(CHUNK, CHUNK, 30);
+        when(userRepository.deleteRowById(userId)).thenReturn(1);
+        UserDeletionService service = service(queued::add);
+
+        // when
+        UserDeletionStatusResponse status = service.delete(userId);
+
+        // then
+        assertEquals(State.DONE, status.state());
+        assertEquals(230, status.tasksDeleted());
+        assertTrue(queued.isEmpty());
+        InOrder order = inOrder(taskRepository, refreshTokenRepository, userRepository);
+        order.verify(taskRepository, times(3)).deleteChunkByOwnerId(userId, CHUNK);
+        order.verify(refreshTokenRepository).deleteAllByOwnerId(userId);
+        order.verify(userRepository).deleteRowById(userId);
+        verify(taskVersionRepository).deleteByOwnerId(userId);
+        verify(availabilityService).recordDeleted();
+        verify(userCache).evictById(userId);
+    }
+
+    @Test
+    void delete_LargeAccount_RunsOnExecutorAndReportsProgress() {
+        // given
+        UUID userId = UUID.randomUUID();
+        when(taskRepository.countByOwnerId(userId)).thenReturn(1_000L);
+        UserDeletionService service = service(queued::add);
+
+        // when
+        UserDeletionStatusResponse started = service.delete(userId);
+        UserDeletionStatusResponse again = service.delete(userId);
+
+        // then
+        assertEquals(State.RUNNING, started.state());
+        assertEquals(State.RUNNING, again.state());
+        assertEquals(1, queued.size(), "a running deletion must not be started twice");
+        verify(taskRepository, never()).deleteChunkByOwnerId(any(), anyInt());
+
+        // and when the background job runs
+        when(taskRepository.deleteChunkByOwnerId(userId, CHUNK)).thenReturn(0);
+        when(userRepository.deleteRowById(userId)).thenReturn(1);
+        queued.get(0).run();
+
+        assertEquals(State.DONE, service.status(userId).state());
+        assertNotNull(service.status(userId).finishedAt());
+    }
+
+    @Test
+    void delete_BackgroundFailure_IsReportedAndCanBeRetried() {
+        // given
+        UUID userId = UUID.randomUUID();
+        when(taskRepository.countByOwnerId(userId)).thenReturn(1_000L);
+        when(taskRepository.deleteChunkByOwnerId(userId, CHUNK))
+                .thenReturn(CHUNK)
+                .thenThrow(new QueryTimeoutException("lock wait timeout"));
+        UserDeletionService service = service(Runnable::run);
+
+        // when
+        service.delete(userId);
+
+        // then
+        UserDeletionStatusResponse status = service.status(userId);
+        assertEquals(State.FAILED, status.state());
+        assertEquals(CHUNK, status.tasksDeleted());
+        assertEquals("lock wait timeout", status.error());
+        verify(userRepository, never()).deleteRowById(userId);
+
+        // a failed deletion is not "running", so DELETE starts over
+        reset(taskRepository);
+        when(taskRepository.countByOwnerId(userId)).thenReturn(900L);
+        when(taskRepository.deleteChunkByOwnerId(userId, CHUNK)).thenReturn(0);
+        assertEquals(State.DONE, service.delete(userId).state());
+    }
+
+    @Test
+    void status_Unknown_Throws() {
+        UserDeletionService service = service(queued::add);
+
+        assertThrows(EntityNotFoundException.class, () -> service.status(UUID.randomUUID()));
+    }
+
+    @Test
+    void constructor_RejectsChunkSizeBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new UserDeletionService(taskRepository, taskVersionRepository,
+                refreshTokenRepository, userRepository, userCache, availabilityService, queued::add,
+                new SimpleMeterRegistry(), 0, INLINE_MAX, Duration.ofHours(1)));
+    }
+}
@@ -11,8 +11,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,6 +33,15 @@ class UserServiceTest {
     @Mock
     private RefreshTokenService refreshTokenService;
 
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    @Mock
+    private UserDeletionService userDeletionService;
+
     @InjectMocks
     private UserService userService;
 
@@ -38,11 +49,11 @@ class UserServiceTest {
     void registerUser_Success() {
         RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
 
-        when(userRepository.findUserByEmail(request.getEmail())).thenReturn(Optional.empty());
-        when(userRepository.findUserByUsername(request.getUsername())).thenReturn(Optional.empty());
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(true);
+        when(availabilityService.isUsernameAvailable("John")).thenReturn(true);
         when(passwordEncoder.encode(request.getPassword())).thenReturn("encodedPass");
-
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.existsByIdIsNotNull()).thenReturn(true);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User u = invocation.getArgument(0);
             u.setId(UUID.randomUUID());
             return u;
@@ -51,18 +62,83 @@ class UserServiceTest {
         var response = userService.registerUser(request);
 
         assertNotNull(response);
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(argThat(u -> u.getRole() == UserRole.USER));
+        verify(userRepository, never()).count();
+        verify(userRepository, never()).findUserByEmail(any());
+        verify(userRepository, never()).findUserByUsername(any());
+        verify(availabilityService).recordRegistered("John", "john@example.com");
+    }
+
+    @Test
+    void registerUser_FirstUserBecomesAdmin() {
+        RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
+
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(true);
+        when(availabilityService.isUsernameAvailable("John")).thenReturn(true);
+        when(passwordEncoder.encode(request.getPassword())).thenReturn("encodedPass");
+        when(userRepository.existsByIdIsNotNull()).thenReturn(false);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.registerUser(request);
+
+        verify(userRepository).saveAndFlush(argThat(u -> u.getRole() == UserRole.ADMIN));
+    }
+
+    @Test
+    void registerUser_EmailTakenConcurrently_ReportedFromConstraint() {
+        RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
+
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(true);
+        when(availabilityService.isUsernameAvailable("John")).thenReturn(true);
+        when(userRepository.existsByIdIsNotNull()).thenReturn(true);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(duplicateKey("users.uk_users_email"));
+
+        DuplicateFieldException ex = assertThrows(DuplicateFieldException.class, () -> userService.registerUser(request));
+        assertEquals("email", ex.getField());
+        verify(userCache, never()).put(any());
     }
 
     @Test
-    void registerUser_EmailAlreadyExists() {
+    void registerUser_UsernameTakenConcurrently_ReportedFromConstraint() {
         RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
 
-        when(userRepository.findUserByEmail(request.getEmail())).thenReturn(Optional.of(new User()));
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(true);
+        when(availabilityService.isUsernameAvailable("John")).thenReturn(true);
+        when(userRepository.existsByIdIsNotNull()).thenReturn(true);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(duplicateKey("PUBLIC.UK_USERS_USERNAME_INDEX_4"));
 
-        assertThrows(DuplicateFieldException.class, () -> userService.registerUser(request));
+        DuplicateFieldException ex = assertThrows(DuplicateFieldException.class, () -> userService.registerUser(request));
+        assertEquals("username", ex.getField());
     }
 
+    @Test
+    void registerUser_EmailAlreadyExists_SkipsHashing() {
+        RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
+
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(false);
+
+        DuplicateFieldException ex = assertThrows(DuplicateFieldException.class, () -> userService.registerUser(request));
+        assertEquals("email", ex.getField());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void registerUser_UsernameAlreadyExists_SkipsHashing() {
+        RegisterRequest request = new RegisterRequest("John", "john@example.com", "password");
+
+        when(availabilityService.isEmailAvailable("john@example.com")).thenReturn(true);
+        when(availabilityService.isUsernameAvailable("John")).thenReturn(false);
+
+        DuplicateFieldException ex = assertThrows(DuplicateFieldException.class, () -> userService.registerUser(request));
+        assertEquals("username", ex.getField());
+        verify(passwordEncoder, never()).encode(any());
+    }
+
+    private static DataIntegrityViolationException duplicateKey(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'x' for key '" + constraint + "'"));
+    }
 
     @Test
     void promoteUser_Success() {
@@ -76,6 +152,7 @@ class UserServiceTest {
         userService.promoteUserToAdmin(userId);
 
         assertEquals(UserRole.ADMIN, user.getRole());
+        verify(userCache).evict(user);
     }
 
     @Test
@@ -98,7 +175,9 @@ class UserServiceTest {
 
         userService.deleteUser(userId);
 
-        verify(userRepository).delete(user);
+        verify(userDeletionService).delete(userId);
+        verify(userCache).evict(user);
+        verify(userRepository, never()).delete(any(User.class));
     }
 
     @Test
@@ -110,5 +189,6 @@ class UserServiceTest {
         when(userRepository.findUserById(userId)).thenReturn(Optional.of(user));
 
         assertThrows(IllegalArgumentException.class, () -> userService.deleteUser(userId));
+        verifyNoInteractions(userDeletionService);
     }
 }
@@ -3,15 +3,20 @@ import { useEffect, useState } from "react";
 import { getAllUsers, promoteUser, deleteUser, type AdminUser } from "../services/adminService";
 import '../admin.css';
 
+const PAGE_SIZE = 20;
+
 export default function AdminDashboardPage() {
   const [users, setUsers] = useState<AdminUser[]>([]);
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
-  const fetchUsers = async () => {
+  const fetchUsers = async (pageToLoad = page) => {
     try {
-      const data = await getAllUsers();
-      setUsers(data);
+      const data = await getAllUsers({ page: pageToLoad, size: PAGE_SIZE });
+      setUsers(data.content);
+      setTotalPages(data.totalPages);
       setError(null);
     } catch (err: any) {
       setError(err.response?.data?.message ?? "Failed to load users");
@@ -40,8 +45,8 @@ const handleDelete = async (id: string) => {
 
 
   useEffect(() => {
-    fetchUsers();
-  }, []);
+    fetchUsers(page);
+  }, [page]);
 
 
   if (loading)
@@ -100,6 +105,27 @@ const handleDelete = async (id: string) => {
                 ))}
               </tbody>
             </table>
+            {totalPages > 1 && (
+              <div className="admin-pagination">
+                <button
+                  onClick={() => setPage((p) => p - 1)}
+                  disabled={page === 0}
+                  className="admin-action-btn"
+                >
+                  Previous
+                </button>
+                <span>
+                  Page {page + 1} of {totalPages}
+                </span>
+                <button
+                  onClick={() => setPage((p) => p + 1)}
+                  disabled={page + 1 >= totalPages}
+                  className="admin-action-btn"
+                >
+                  Next
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>
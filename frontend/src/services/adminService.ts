@@ -8,8 +8,24 @@ export type AdminUser = {
   role: string;          // USER / ADMIN
 };
 
-export const getAllUsers = async () => {
-  const res = await api.get<AdminUser[]>("/admin/users");
+export type AdminUserPage = {
+  content: AdminUser[];
+  page: number;
+  size: number;
+  totalElements: number;
+  totalPages: number;
+};
+
+export type AdminUserQuery = {
+  page?: number;
+  size?: number;
+  sort?: "username" | "tasksDone";
+  direction?: "asc" | "desc";
+  username?: string;     // префикс
+};
+
+export const getAllUsers = async (query: AdminUserQuery = {}) => {
+  const res = await api.get<AdminUserPage>("/admin/users", { params: query });
   return res.data;
 };
 
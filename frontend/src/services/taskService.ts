@@ -27,6 +27,16 @@ export const updateTask = async (id: number, data: UpdateTaskRequest) => {
   await api.put(`/tasks/${id}`, data);
 };
 
+export type PatchTaskRequest = Partial<UpdateTaskRequest>;
+
+// only the given fields change; answers 412 if the task moved past `version` in the meantime
+export const patchTask = async (id: number, version: number, data: PatchTaskRequest) => {
+  const res = await api.patch<Task>(`/tasks/${id}`, data, {
+    headers: { "If-Match": `"${version}"` },
+  });
+  return res.data;
+};
+
 export const deleteTask = async (id: number) => {
   await api.delete(`/tasks/${id}`);
 };
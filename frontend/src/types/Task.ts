@@ -4,4 +4,5 @@ export type Task = {
   description: string;
   isActive: boolean;
   createdAt: string;   
+  version: number;
 };